@@ -0,0 +1,313 @@
+/* BatchParser.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Batch parser, checking a file of command lines against common options. Each line is parsed as described in
+ * {@link SeqParser#parse(Options, String, boolean)}; for each line, one line of output is written, consisting of
+ * the line number, <code>OK</code> or <code>ERROR</code>, and the formatted result or the error message, separated
+ * by tabs. Backslashes, tabs and line breaks in the last column are escaped as <code>\\</code>,
+ * <code>\t</code>, <code>\n</code> and <code>\r</code>, so that each record stays on one line.
+ *
+ * <p>Reading, parsing and writing run as a pipeline: lines are read in chunks, the chunks are parsed in parallel
+ * by a pool of worker threads and the results are written in the original order. The number of chunks in flight
+ * is bounded, so is the memory used.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class BatchParser {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(BatchParser.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return "BatchParser";
+  }
+
+  // constants
+  private static final int DEFAULT_CHUNK_SIZE = 1024;
+  private static final long POLL_MILLIS = 100;
+  private static final String OK = "OK";
+  private static final String ERROR = "ERROR";
+  private static final char TAB = '\t';
+  private static final char NEWLINE = '\n';
+
+  /** The parser. */
+  private final SeqParser parser;
+
+  /** The options. */
+  private final Options options;
+
+  /** If <code>true</code>, stop on the first non-option. */
+  private final boolean stopOnNonOption;
+
+  /** Number of worker threads. */
+  private int threads = Runtime.getRuntime().availableProcessors();
+
+  /** Number of lines in a chunk. */
+  private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+  /** The formatter of the results. */
+  private Function<CommandLine, String> formatter = BatchParser::format;
+
+  /**
+   * Gets the number of worker threads.
+   *
+   * @return the number of worker threads
+   */
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Sets the number of worker threads. The default is the number of available processors.
+   *
+   * @param threads the number of worker threads
+   * @return the batch parser, to facilitate chaining
+   */
+  public BatchParser setThreads(final int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Invalid number of threads");
+    }
+    this.threads = threads;
+    return this;
+  }
+
+  /**
+   * Gets the number of lines in a chunk.
+   *
+   * @return the number of lines in a chunk
+   */
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  /**
+   * Sets the number of lines in a chunk, i.e. the unit of work of a worker thread.
+   *
+   * @param chunkSize the number of lines in a chunk
+   * @return the batch parser, to facilitate chaining
+   */
+  public BatchParser setChunkSize(final int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Invalid chunk size");
+    }
+    this.chunkSize = chunkSize;
+    return this;
+  }
+
+  /**
+   * Sets the formatter of the results. It is called concurrently from the worker threads; tabs and line breaks
+   * in the returned strings are escaped. The default formatter lists the names of the options.
+   *
+   * @param formatter the formatter
+   * @return the batch parser, to facilitate chaining
+   */
+  public BatchParser setFormatter(final Function<CommandLine, String> formatter) {
+    this.formatter = formatter;
+    return this;
+  }
+
+  // the default formatter
+  private static String format(final CommandLine cmd) {
+    final StringBuilder res = new StringBuilder();
+    for (Parameter parameter : cmd.getParameters()) {
+      if (res.length() > 0) {
+        res.append(' ');
+      }
+      res.append(parameter.getOption().getName());
+    }
+    return res.toString();
+  }
+
+  /**
+   * Result of processing a chunk of lines.
+   */
+  private static final class Chunk {
+
+    // fields
+    private final String text;
+    private final long errors;
+
+    // creates the chunk
+    private Chunk(final String text, final long errors) {
+      this.text = text;
+      this.errors = errors;
+    }
+  }
+
+  // the end-of-input marker
+  private static final Future<Chunk> END = CompletableFuture.completedFuture(null);
+
+  // parses a chunk of lines
+  private Chunk parseChunk(final List<String> lines, final long firstLine) {
+    final StringBuilder text = new StringBuilder();
+    long errors = 0;
+    long lineNumber = firstLine;
+    for (String line : lines) {
+      text.append(lineNumber++).append(TAB);
+      try {
+        final CommandLine cmd = parser.parse(options, line, stopOnNonOption);
+        escape(text.append(OK).append(TAB), formatter.apply(cmd));
+      } catch (final ParseException exception) {
+        escape(text.append(ERROR).append(TAB), exception.getMessage());
+        errors++;
+      }
+      text.append(NEWLINE);
+    }
+    return new Chunk(text.toString(), errors);
+  }
+
+  // appends the string, escaping backslashes, tabs and line breaks
+  private static void escape(final StringBuilder text, final String str) {
+    if (str == null) {
+      return;
+    }
+    for (int i = 0; i < str.length(); i++) {
+      final char c = str.charAt(i);
+      switch (c) {
+        case '\\':
+          text.append("\\\\");
+          break;
+        case '\t':
+          text.append("\\t");
+          break;
+        case '\n':
+          text.append("\\n");
+          break;
+        case '\r':
+          text.append("\\r");
+          break;
+        default:
+          text.append(c);
+          break;
+      }
+    }
+  }
+
+  // writes the chunks in order
+  private static long write(final BlockingQueue<Future<Chunk>> queue, final Writer out)
+      throws IOException, InterruptedException, ExecutionException {
+    long errors = 0;
+    for (Future<Chunk> future = queue.take(); future != END; future = queue.take()) {
+      final Chunk chunk = future.get();
+      out.write(chunk.text);
+      errors += chunk.errors;
+    }
+    out.flush();
+    return errors;
+  }
+
+  // queues a future, giving up if the writer has terminated
+  private static void put(final BlockingQueue<Future<Chunk>> queue, final Future<Chunk> future,
+      final Future<Long> writer) throws InterruptedException {
+    while (!queue.offer(future, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+      if (writer.isDone()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Parses the lines read from the input and writes the results to the output. Neither the input nor the output
+   * is closed.
+   *
+   * @param in the input
+   * @param out the output
+   * @return the number of lines that failed to parse
+   * @throws IOException on I/O error
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public long run(final BufferedReader in, final Writer out) throws IOException, InterruptedException {
+    final ExecutorService workers = Executors.newFixedThreadPool(threads);
+    final ExecutorService writerService = Executors.newSingleThreadExecutor();
+    final BlockingQueue<Future<Chunk>> queue = new ArrayBlockingQueue<>(2 * threads);
+    try {
+      final Future<Long> writer = writerService.submit(() -> write(queue, out));
+      long lineNumber = 1;
+      List<String> lines = new ArrayList<>(chunkSize);
+      for (String line = in.readLine(); (line != null) && !writer.isDone(); line = in.readLine()) {
+        lines.add(line);
+        if (lines.size() == chunkSize) {
+          final List<String> chunk = lines;
+          final long firstLine = lineNumber;
+          put(queue, workers.submit(() -> parseChunk(chunk, firstLine)), writer);
+          lineNumber += chunkSize;
+          lines = new ArrayList<>(chunkSize);
+        }
+      }
+      if (!lines.isEmpty()) {
+        final List<String> chunk = lines;
+        final long firstLine = lineNumber;
+        put(queue, workers.submit(() -> parseChunk(chunk, firstLine)), writer);
+      }
+      put(queue, END, writer);
+      try {
+        return writer.get();
+      } catch (final ExecutionException exception) {
+        final Throwable cause = exception.getCause();
+        if (cause instanceof ExecutionException) {  // failure of a worker
+          throw new IllegalStateException(cause.getCause());
+        } else if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    } finally {
+      workers.shutdownNow();
+      writerService.shutdownNow();
+    }
+  }
+
+  /**
+   * Creates the batch parser.
+   *
+   * @param parser the parser, which determines the separator
+   * @param options the options
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   */
+  public BatchParser(final SeqParser parser, final Options options, final boolean stopOnNonOption) {
+    this.parser = parser;
+    this.options = options;
+    this.stopOnNonOption = stopOnNonOption;
+  }
+}
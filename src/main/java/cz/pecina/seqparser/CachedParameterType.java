@@ -0,0 +1,124 @@
+/* CachedParameterType.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Parameter type memoizing the results of another type, see {@link ParameterType#cached(ParameterType, int)}.
+ * The memo is direct-mapped: each value has one slot, determined by its hash code, and a value replaces
+ * a different one occupying its slot.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+final class CachedParameterType implements ParameterType {
+
+  /**
+   * Memoized result.
+   */
+  private static final class Entry {
+
+    // fields
+    private final java.lang.String key;
+    private final boolean valid;
+    private final Object value;
+
+    // creates the entry
+    private Entry(final java.lang.String key, final boolean valid, final Object value) {
+      this.key = key;
+      this.valid = valid;
+      this.value = value;
+    }
+  }
+
+  /** The decorated type. */
+  private final ParameterType type;
+
+  /** The memoized results of type-checking. */
+  private final AtomicReferenceArray<Entry> checks;
+
+  /** The memoized converted values. */
+  private final AtomicReferenceArray<Entry> values;
+
+  /** The mask selecting a slot. */
+  private final int mask;
+
+  // gets the slot of a string
+  private int slot(final java.lang.String str) {
+    final int hash = str.hashCode();
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+
+  @Override
+  public boolean check(final java.lang.String str) {
+    if (str == null) {
+      return false;
+    }
+    final int slot = slot(str);
+    final Entry entry = checks.get(slot);
+    if ((entry != null) && entry.key.equals(str)) {
+      return entry.valid;
+    }
+    final boolean res = type.check(str);
+    checks.set(slot, new Entry(str, res, null));
+    return res;
+  }
+
+  @Override
+  public Object get(final java.lang.String val) {
+    if (val == null) {  // not memoized
+      return type.get(val);
+    }
+    final int slot = slot(val);
+    final Entry entry = values.get(slot);
+    if ((entry != null) && entry.key.equals(val)) {
+      return entry.value;
+    }
+    final Object res = type.get(val);
+    values.set(slot, new Entry(val, true, res));
+    return res;
+  }
+
+  @Override
+  public java.lang.String getSpec() {
+    return type.getSpec();
+  }
+
+  /**
+   * Creates the memoizing type.
+   *
+   * @param type the decorated type
+   * @param size the minimum number of memoized values, rounded up to a power of two
+   */
+  CachedParameterType(final ParameterType type, final int size) {
+    if ((size < 1) || (size > (1 << 30))) {
+      throw new IllegalArgumentException("Invalid cache size");
+    }
+    this.type = type;
+    final int numSlots = (size == 1) ? 1 : java.lang.Integer.highestOneBit(size - 1) << 1;
+    checks = new AtomicReferenceArray<>(numSlots);
+    values = new AtomicReferenceArray<>(numSlots);
+    mask = numSlots - 1;
+  }
+}
@@ -0,0 +1,338 @@
+/* CharStore.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append-only character storage, addressed by offsets.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+abstract class CharStore {
+
+  /**
+   * Appends a string.
+   *
+   * @param str the string
+   * @return the offset of the string
+   */
+  abstract int append(String str);
+
+  /**
+   * Gets a character.
+   *
+   * @param offset the offset of the string
+   * @param idx the index within the string
+   * @return the character
+   */
+  abstract char charAt(int offset, int idx);
+
+  /**
+   * Gets a read-only view of a stored string.
+   *
+   * @param offset the offset of the string
+   * @param len the length of the string
+   * @return the view
+   */
+  abstract CharSequence view(int offset, int len);
+
+  /**
+   * Gets a stored string.
+   *
+   * @param offset the offset of the string
+   * @param len the length of the string
+   * @return the string
+   */
+  String getString(final int offset, final int len) {
+    return view(offset, len).toString();
+  }
+
+  /**
+   * Compares a stored string to a string.
+   *
+   * @param offset the offset of the stored string
+   * @param len the length of the stored string
+   * @param str the string
+   * @return <code>true</code> if equal
+   */
+  boolean equals(final int offset, final int len, final String str) {
+    if (len != str.length()) {
+      return false;
+    }
+    for (int i = 0; i < len; i++) {
+      if (charAt(offset, i) != str.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Releases the storage. No access is possible afterwards.
+   */
+  abstract void release();
+
+  /**
+   * Storage on the Java heap, in a single character array.
+   */
+  static final class Heap extends CharStore {
+
+    // fields
+    private char[] chars;
+    private int size;
+
+    @Override
+    int append(final String str) {
+      final int len = str.length();
+      if (size + len > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(chars.length * 2, size + len));
+      }
+      str.getChars(0, len, chars, size);
+      final int offset = size;
+      size += len;
+      return offset;
+    }
+
+    @Override
+    char charAt(final int offset, final int idx) {
+      return chars[offset + idx];
+    }
+
+    @Override
+    CharSequence view(final int offset, final int len) {
+      return CharBuffer.wrap(chars, offset, len).asReadOnlyBuffer();
+    }
+
+    @Override
+    String getString(final int offset, final int len) {
+      return new String(chars, offset, len);
+    }
+
+    @Override
+    void release() {
+      chars = null;
+    }
+
+    /**
+     * Creates the heap storage.
+     *
+     * @param capacity the initial capacity
+     */
+    Heap(final int capacity) {
+      chars = new char[capacity];
+    }
+  }
+
+  /**
+   * Storage outside the Java heap, in an arena of direct buffers. The offset of a string encodes the number of
+   * the chunk in its upper bits and the position within the chunk in the lower bits; a string never spans two
+   * chunks, strings longer than a chunk get a dedicated one. The chunks start small and double up to the maximum
+   * size, so a small store takes little memory.
+   *
+   * <p>The memory of the chunks is freed on release, where the platform allows it, by
+   * <code>sun.misc.Unsafe.invokeCleaner</code> on Java 9 and later and by the cleaner of the buffer on Java 8;
+   * otherwise it is reclaimed by the garbage collector. Access and release are synchronized on the store and
+   * each access checks that the store has not been released, so a view read concurrently with the release
+   * fails instead of reading freed memory.
+   */
+  static final class Direct extends CharStore {
+
+    // constants
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int FIRST_CHUNK_SIZE = 1 << 12;
+    private static final int POS_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << (Integer.SIZE - 1 - CHUNK_BITS);
+
+    // the unsafe object and its method freeing a direct buffer (Java 9 and later), or null
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+      Object unsafe = null;
+      Method invokeCleaner = null;
+      try {
+        final Class<?> cls = Class.forName("sun.misc.Unsafe");
+        invokeCleaner = cls.getMethod("invokeCleaner", ByteBuffer.class);
+        final Field field = cls.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        unsafe = field.get(null);
+      } catch (ReflectiveOperationException | RuntimeException exception) {
+        invokeCleaner = null;
+      }
+      UNSAFE = unsafe;
+      INVOKE_CLEANER = invokeCleaner;
+    }
+
+    /**
+     * View of a stored string, valid until the store is released.
+     */
+    private final class View implements CharSequence {
+
+      // fields
+      private final int offset;
+      private final int start;
+      private final int len;
+
+      @Override
+      public int length() {
+        return len;
+      }
+
+      @Override
+      public char charAt(final int idx) {
+        if ((idx < 0) || (idx >= len)) {
+          throw new IndexOutOfBoundsException("Index: " + idx);
+        }
+        return Direct.this.charAt(offset, start + idx);
+      }
+
+      @Override
+      public CharSequence subSequence(final int from, final int to) {
+        if ((from < 0) || (to > len) || (from > to)) {
+          throw new IndexOutOfBoundsException("Range: " + from + "-" + to);
+        }
+        return new View(offset, start + from, to - from);
+      }
+
+      @Override
+      public String toString() {
+        return copy(offset, start, len);
+      }
+
+      // creates the view
+      private View(final int offset, final int start, final int len) {
+        this.offset = offset;
+        this.start = start;
+        this.len = len;
+      }
+    }
+
+    // fields
+    private List<ByteBuffer> buffers = new ArrayList<>();
+    private List<CharBuffer> chunks = new ArrayList<>();
+    private CharBuffer chunk;
+    private int nextSize = FIRST_CHUNK_SIZE;
+
+    // allocates a new chunk
+    private void allocate(final int capacity) {
+      if (chunks.size() == MAX_CHUNKS) {
+        throw new IllegalStateException("Off-heap storage exhausted");
+      }
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(capacity * Character.BYTES);
+      buffers.add(buffer);
+      chunk = buffer.asCharBuffer();
+      chunks.add(chunk);
+    }
+
+    // gets the chunk of a string, provided the store has not been released
+    private CharBuffer getChunk(final int offset) {
+      if (chunks == null) {
+        throw new IllegalStateException("Storage released");
+      }
+      return chunks.get(offset >>> CHUNK_BITS);
+    }
+
+    // copies a part of a stored string
+    private synchronized String copy(final int offset, final int start, final int len) {
+      final CharBuffer buf = getChunk(offset).duplicate();
+      buf.position((offset & POS_MASK) + start);
+      final char[] res = new char[len];
+      buf.get(res);
+      return new String(res);
+    }
+
+    // frees a direct buffer if the platform allows it, otherwise leaves it to the garbage collector
+    private static void free(final ByteBuffer buffer) {
+      try {
+        if (INVOKE_CLEANER != null) {
+          INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } else {  // Java 8
+          final Method getCleaner = buffer.getClass().getMethod("cleaner");
+          getCleaner.setAccessible(true);
+          final Object cleaner = getCleaner.invoke(buffer);
+          if (cleaner != null) {
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+          }
+        }
+      } catch (ReflectiveOperationException | RuntimeException exception) {
+        // not supported, the buffer is reclaimed by the garbage collector
+      }
+    }
+
+    @Override
+    synchronized int append(final String str) {
+      final int len = str.length();
+      if ((chunk == null) || (chunk.remaining() < len)) {
+        allocate(Math.max(nextSize, len));
+        nextSize = Math.min(nextSize * 2, CHUNK_SIZE);
+      }
+      final int offset = ((chunks.size() - 1) << CHUNK_BITS) | chunk.position();
+      chunk.put(str);
+      return offset;
+    }
+
+    @Override
+    synchronized char charAt(final int offset, final int idx) {
+      return getChunk(offset).get((offset & POS_MASK) + idx);
+    }
+
+    @Override
+    synchronized CharSequence view(final int offset, final int len) {
+      getChunk(offset);
+      return new View(offset, 0, len);
+    }
+
+    @Override
+    synchronized String getString(final int offset, final int len) {
+      return copy(offset, 0, len);
+    }
+
+    @Override
+    synchronized void release() {
+      if (buffers != null) {
+        chunks = null;
+        chunk = null;
+        for (ByteBuffer buffer : buffers) {
+          free(buffer);
+        }
+        buffers = null;
+      }
+    }
+
+    /**
+     * Creates the off-heap storage.
+     */
+    Direct() {
+      // no action
+    }
+  }
+}
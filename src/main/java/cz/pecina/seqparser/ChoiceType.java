@@ -0,0 +1,178 @@
+/* ChoiceType.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+/**
+ * Parameter type restricting the value to a fixed set of names, see {@link ParameterType#Choice(String...)} and
+ * {@link ParameterType#Enum(Class)}. The names are placed in a table by a perfect hash function, found when
+ * the type is created, so that a value is matched by hashing its characters and comparing them with a single
+ * name, without creating any objects.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+final class ChoiceType extends BuiltinType {
+
+  // constants
+  private static final int SEEDS_PER_SIZE = 256;
+  private static final int MAX_TABLE_SIZE = 1 << 20;
+  private static final int SEED_MULTIPLIER = 0x9e3779b9;
+  private static final int FNV_PRIME = 0x01000193;
+
+  /** The table of names, indexed by the hash. */
+  private final java.lang.String[] names;
+
+  /** The table of values, indexed by the hash. */
+  private final Object[] values;
+
+  /** The seed of the hash function. */
+  private final int seed;
+
+  /** The mask selecting a slot. */
+  private final int mask;
+
+  /** The specification. */
+  private final java.lang.String spec;
+
+  // hashes a span of characters
+  private static int hash(final int seed, final CharSequence chars, final int start, final int end) {
+    int res = (seed * SEED_MULTIPLIER) ^ (end - start);
+    for (int i = start; i < end; i++) {
+      res = (res ^ chars.charAt(i)) * FNV_PRIME;
+    }
+    return res ^ (res >>> 16);
+  }
+
+  /**
+   * Finds the slot of the name matching a span of characters. The parser uses it to match a sub-parameter
+   * value within its argument, without building the value.
+   *
+   * @param chars the characters
+   * @param start the start of the span
+   * @param end the end of the span
+   * @return the slot, or <code>-1</code> if no name matches
+   */
+  int indexOf(final CharSequence chars, final int start, final int end) {
+    final int slot = hash(seed, chars, start, end) & mask;
+    final java.lang.String name = names[slot];
+    if ((name == null) || (name.length() != (end - start))) {
+      return -1;
+    }
+    for (int i = 0; i < name.length(); i++) {
+      if (name.charAt(i) != chars.charAt(start + i)) {
+        return -1;
+      }
+    }
+    return slot;
+  }
+
+  /**
+   * Gets the name in a slot.
+   *
+   * @param slot the slot, see {@link #indexOf(CharSequence, int, int)}
+   * @return the name
+   */
+  java.lang.String getName(final int slot) {
+    return names[slot];
+  }
+
+  @Override
+  public boolean check(final java.lang.String str) {
+    return (str != null) && (indexOf(str, 0, str.length()) >= 0);
+  }
+
+  /**
+   * Gets the value matching a name.
+   *
+   * @param val the name
+   * @return the value: the canonical name for a choice, the constant for an enumeration
+   */
+  @Override
+  public Object get(final java.lang.String val) {
+    final int slot = indexOf(val, 0, val.length());
+    if (slot < 0) {
+      throw new IllegalArgumentException("Invalid value: " + val);
+    }
+    return values[slot];
+  }
+
+  @Override
+  public java.lang.String getSpec() {
+    return spec;
+  }
+
+  // builds the specification from the table, listing the names with their lengths, as they may contain commas
+  private static java.lang.String spec(final java.lang.String[] table, final Object[] values) {
+    final Object value = values[0];
+    final StringBuilder res = new StringBuilder("Choice(")
+        .append((value instanceof Enum) ? ((Enum<?>) value).getDeclaringClass().getName() : "String");
+    for (java.lang.String name : table) {
+      if (name != null) {
+        res.append(',').append(name.length()).append(':').append(name);
+      }
+    }
+    return res.append(')').toString();
+  }
+
+  /**
+   * Creates the type.
+   *
+   * @param names the names
+   * @param values the values corresponding to the names
+   */
+  ChoiceType(final java.lang.String[] names, final Object[] values) {
+    super(KIND_CHOICE);
+    if (names.length == 0) {
+      throw new IllegalArgumentException("No values");
+    }
+    for (int size = java.lang.Integer.highestOneBit(names.length) << 1; size <= MAX_TABLE_SIZE; size <<= 1) {
+      for (int s = 0; s < SEEDS_PER_SIZE; s++) {
+        final java.lang.String[] table = new java.lang.String[size];
+        boolean perfect = true;
+        for (java.lang.String name : names) {
+          final int slot = hash(s, name, 0, name.length()) & (size - 1);
+          if (table[slot] != null) {
+            if (table[slot].equals(name)) {
+              throw new IllegalArgumentException("Duplicate value: " + name);
+            }
+            perfect = false;
+            break;
+          }
+          table[slot] = name;
+        }
+        if (perfect) {
+          this.names = table;
+          this.values = new Object[size];
+          for (int i = 0; i < names.length; i++) {
+            this.values[hash(s, names[i], 0, names[i].length()) & (size - 1)] = values[i];
+          }
+          seed = s;
+          mask = size - 1;
+          spec = spec(table, values);
+          return;
+        }
+      }
+    }
+    throw new IllegalArgumentException("Perfect hash not found");
+  }
+}
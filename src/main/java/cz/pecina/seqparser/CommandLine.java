@@ -23,6 +23,8 @@
 package cz.pecina.seqparser;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -44,10 +46,10 @@ public final class CommandLine {
   }
 
   /** List of parsed parameters. */
-  private final List<Parameter> parameters = new ArrayList<>();
+  private List<Parameter> parameters = new ArrayList<>();
 
   /** List of remaining (unparsed) arguments. */
-  private final List<String> remArgs = new ArrayList<>();
+  private List<String> remArgs = new ArrayList<>();
 
   /**
    * Gets the list of parameters.
@@ -68,12 +70,13 @@ public final class CommandLine {
   }
 
   /**
-   * Gets the list of remaining (unparsed) arguments.
+   * Gets the list of remaining (unparsed) arguments. The list is unmodifiable; if the arguments were parsed
+   * from an array, it is a view of the tail of that array, not a copy.
    *
    * @return the list of remaining (unparsed) arguments
    */
   public List<String> getRemArgs() {
-    return remArgs;
+    return Collections.unmodifiableList(remArgs);
   }
 
   /**
@@ -82,9 +85,83 @@ public final class CommandLine {
    * @param arg argument to be added
    */
   void addRemArg(final String arg) {
+    if (!(remArgs instanceof ArrayList)) {
+      remArgs = new ArrayList<>(remArgs);
+    }
     remArgs.add(arg);
   }
 
+  /**
+   * Adds the tail of an array of arguments to the list of remaining arguments, without copying.
+   *
+   * @param args the array of arguments
+   * @param from the index of the first remaining argument
+   */
+  void addRemArgs(final String[] args, final int from) {
+    final List<String> tail = Arrays.asList(args).subList(from, args.length);
+    if (remArgs.isEmpty()) {
+      remArgs = tail;
+    } else {
+      for (String arg : tail) {
+        addRemArg(arg);
+      }
+    }
+  }
+
+  /**
+   * Makes the command line object unmodifiable, so that it can be shared. The remaining arguments are copied,
+   * detaching them from the array they were parsed from.
+   *
+   * @return the command line object, to facilitate chaining
+   */
+  CommandLine freeze() {
+    for (Parameter parameter : parameters) {
+      parameter.freeze();
+    }
+    parameters = Collections.unmodifiableList(parameters);
+    remArgs = new ArrayList<>(remArgs);
+    return this;
+  }
+
+  /**
+   * Gets a sink filling the command line object.
+   *
+   * @return the sink
+   */
+  ParseSink getSink() {
+    return new ParseSink() {
+
+      // the last parameter added
+      private Parameter parameter;
+
+      @Override
+      public void addParameter(final Option option) {
+        parameter = new Parameter(option);
+        CommandLine.this.addParameter(parameter);
+      }
+
+      @Override
+      public void addSubParameter(final String value, final SubOption subOption) {
+        parameter.addSubParameter(SubParameter.ofChecked(value, subOption));
+      }
+
+      @Override
+      public void addKwSubParameter(final String key, final String value, final SubOption subOption) {
+        parameter.addKwSubParameter(key, SubParameter.ofChecked(value, subOption));
+      }
+
+      @Override
+      public void addRemArg(final String arg) {
+        CommandLine.this.addRemArg(arg);
+      }
+
+      @Override
+      public void addRemArgs(final String[] args, final int from) {
+        CommandLine.this.addRemArgs(args, from);
+      }
+    };
+  }
+
   /**
    * Creates the command line object.
    */
@@ -0,0 +1,350 @@
+/* CommandLineCodec.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of command lines, for passing them between processes or caching them. The encoded
+ * command line carries the fingerprint of the options it was parsed against (see {@link Options#getFingerprint()})
+ * and can only be decoded with matching options. Decoding does not check the values again.
+ *
+ * <p>The encoding starts with a version byte and the fingerprint, followed by the parameters, each as the ordinal
+ * of its option and its positional and keyword sub-parameters, and by the remaining arguments. Counts and ordinals
+ * are stored as variable-length integers. Values are stored according to the type of their sub-option: those of
+ * {@link IntParameterType} and {@link LongParameterType} as the variable-length integers returned by the type,
+ * e.g. bytes or nanoseconds for the types with units, those of {@link DoubleParameterType} as the eight bytes of
+ * the floating-point number, and all others as UTF-8 strings. The raw string follows the number unless it is the
+ * canonical representation of the number, e.g. <code>42</code> but not <code>042</code> or <code>1k</code>.
+ * Decoded numeric values are returned by {@link SubParameter#getAsInt()}, {@link SubParameter#getAsLong()} and
+ * {@link SubParameter#getAsDouble()} without parsing.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class CommandLineCodec {
+
+  // constants
+  private static final byte VERSION = 2;
+  private static final int TAG_STRING = 0;
+  private static final int TAG_INT = 1;
+  private static final int TAG_LONG = 2;
+  private static final int TAG_DOUBLE = 3;
+  private static final int TAG_RAW = 4;
+  private static final int VARINT_BITS = 7;
+  private static final int VARINT_MASK = 0x7f;
+  private static final int VARINT_MORE = 0x80;
+
+  /**
+   * Encoder, writing to a byte array.
+   */
+  private static final class Encoder {
+
+    // fields
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // writes an unsigned variable-length integer
+    private void writeVarLong(final long value) {
+      long rest = value;
+      while ((rest & ~VARINT_MASK) != 0) {
+        out.write((int) ((rest & VARINT_MASK) | VARINT_MORE));
+        rest >>>= VARINT_BITS;
+      }
+      out.write((int) rest);
+    }
+
+    // writes a string
+    private void writeString(final String str) {
+      final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(bytes.length);
+      out.write(bytes, 0, bytes.length);
+    }
+
+    // writes a signed variable-length integer
+    private void writeZigZag(final long value) {
+      writeVarLong((value << 1) ^ (value >> (Long.SIZE - 1)));
+    }
+
+    // writes a fixed-length integer
+    private void writeFixedLong(final long value) {
+      for (int i = 0; i < Long.SIZE; i += Byte.SIZE) {
+        out.write((int) (value >>> i));
+      }
+    }
+
+    // writes a number, followed by the raw value unless it is the canonical representation
+    private void writeNumber(final int tag, final long num, final String canonical, final String value) {
+      final boolean raw = !canonical.equals(value);
+      out.write(raw ? (tag | TAG_RAW) : tag);
+      if (tag == TAG_DOUBLE) {
+        writeFixedLong(num);
+      } else {
+        writeZigZag(num);
+      }
+      if (raw) {
+        writeString(value);
+      }
+    }
+
+    // writes a value, as number if its type is numeric
+    private void writeValue(final SubParameter subParameter) {
+      final ParameterType type = subParameter.getSubOption().getType();
+      final String value = subParameter.getAsString();
+      try {
+        if (type instanceof IntParameterType) {
+          final int num = ((IntParameterType) type).parseInt(value);
+          writeNumber(TAG_INT, num, Integer.toString(num), value);
+          return;
+        } else if (type instanceof LongParameterType) {
+          final long num = ((LongParameterType) type).parseLong(value);
+          writeNumber(TAG_LONG, num, Long.toString(num), value);
+          return;
+        } else if (type instanceof DoubleParameterType) {
+          final double num = ((DoubleParameterType) type).parseDouble(value);
+          writeNumber(TAG_DOUBLE, Double.doubleToRawLongBits(num), Double.toString(num), value);
+          return;
+        }
+      } catch (final NumberFormatException exception) {
+        // accepted by a custom check only, stored as string
+      }
+      out.write(TAG_STRING);
+      writeString(value);
+    }
+  }
+
+  /**
+   * Decoder, reading from a byte array.
+   */
+  private static final class Decoder {
+
+    // fields
+    private final byte[] data;
+    private int idx = 0;
+
+    // reads a byte
+    private int read() throws ParseException {
+      if (idx >= data.length) {
+        throw corrupt();
+      }
+      return data[idx++] & 0xff;
+    }
+
+    // reads an unsigned variable-length integer
+    private long readVarLong() throws ParseException {
+      long res = 0;
+      for (int shift = 0; shift < Long.SIZE; shift += VARINT_BITS) {
+        final int b = read();
+        res |= (long) (b & VARINT_MASK) << shift;
+        if ((b & VARINT_MORE) == 0) {
+          return res;
+        }
+      }
+      throw corrupt();
+    }
+
+    // reads a count
+    private int readCount() throws ParseException {
+      final long res = readVarLong();
+      if ((res < 0) || (res > data.length - idx)) {  // every item takes at least one byte
+        throw corrupt();
+      }
+      return (int) res;
+    }
+
+    // reads a string
+    private String readString() throws ParseException {
+      final int len = readCount();
+      final String res = new String(data, idx, len, StandardCharsets.UTF_8);
+      idx += len;
+      return res;
+    }
+
+    // reads a signed variable-length integer
+    private long readZigZag() throws ParseException {
+      final long num = readVarLong();
+      return (num >>> 1) ^ -(num & 1);
+    }
+
+    // reads a signed variable-length integer within the range of int
+    private int readZigZagInt() throws ParseException {
+      final long res = readZigZag();
+      if (res != (int) res) {
+        throw corrupt();
+      }
+      return (int) res;
+    }
+
+    // reads a fixed-length integer
+    private long readFixedLong() throws ParseException {
+      long res = 0;
+      for (int i = 0; i < Long.SIZE; i += Byte.SIZE) {
+        res |= (long) read() << i;
+      }
+      return res;
+    }
+
+    // reads a value, which must be stored according to the type of the sub-option
+    private SubParameter readValue(final SubOption subOption) throws ParseException {
+      final int tag = read();
+      if (tag == TAG_STRING) {
+        return SubParameter.ofChecked(readString(), subOption);
+      }
+      final boolean raw = (tag & TAG_RAW) != 0;
+      final ParameterType type = subOption.getType();
+      final Number num;
+      final String canonical;
+      switch (tag & ~TAG_RAW) {
+        case TAG_INT:
+          if (!(type instanceof IntParameterType)) {
+            throw corrupt();
+          }
+          num = readZigZagInt();
+          canonical = raw ? null : num.toString();
+          break;
+        case TAG_LONG:
+          if (!(type instanceof LongParameterType)) {
+            throw corrupt();
+          }
+          num = readZigZag();
+          canonical = raw ? null : num.toString();
+          break;
+        case TAG_DOUBLE:
+          if (!(type instanceof DoubleParameterType)) {
+            throw corrupt();
+          }
+          num = Double.longBitsToDouble(readFixedLong());
+          canonical = raw ? null : num.toString();
+          break;
+        default:
+          throw corrupt();
+      }
+      return SubParameter.ofChecked(raw ? readString() : canonical, subOption, num);
+    }
+
+    // creates the decoder
+    private Decoder(final byte[] data) {
+      this.data = data;
+    }
+  }
+
+  // the exception signalling corrupt data
+  private static ParseException corrupt() {
+    return new ParseException("Corrupt encoded command line");
+  }
+
+  /**
+   * Encodes a command line.
+   *
+   * @param options the options the command line was parsed against
+   * @param cmd the command line
+   * @return the encoded command line
+   * @throws IllegalArgumentException if the command line contains an option not belonging to the options
+   */
+  public static byte[] encode(final Options options, final CommandLine cmd) {
+    final Encoder enc = new Encoder();
+    enc.out.write(VERSION);
+    enc.writeFixedLong(options.getFingerprint());
+    final List<Parameter> parameters = cmd.getParameters();
+    enc.writeVarLong(parameters.size());
+    for (Parameter parameter : parameters) {
+      final int ordinal = options.getOrdinal(parameter.getOption());
+      if (ordinal < 0) {
+        throw new IllegalArgumentException("Option not found: " + parameter.getOption().getName());
+      }
+      enc.writeVarLong(ordinal);
+      enc.writeVarLong(parameter.getNumSubParameters());
+      for (SubParameter subParameter : parameter.getSubParameters()) {
+        enc.writeValue(subParameter);
+      }
+      enc.writeVarLong(parameter.getNumKwSubParameters());
+      for (Map.Entry<String, SubParameter> entry : parameter.getKwSubParameters().entrySet()) {
+        enc.writeString(entry.getKey());
+        enc.writeValue(entry.getValue());
+      }
+    }
+    final List<String> remArgs = cmd.getRemArgs();
+    enc.writeVarLong(remArgs.size());
+    for (String arg : remArgs) {
+      enc.writeString(arg);
+    }
+    return enc.out.toByteArray();
+  }
+
+  /**
+   * Decodes a command line. The values are not checked again.
+   *
+   * @param options the options the command line was parsed against
+   * @param data the encoded command line
+   * @return the command line
+   * @throws ParseException if the data is corrupt or does not match the options
+   */
+  public static CommandLine decode(final Options options, final byte[] data) throws ParseException {
+    final Decoder dec = new Decoder(data);
+    if (dec.read() != VERSION) {
+      throw corrupt();
+    }
+    if (dec.readFixedLong() != options.getFingerprint()) {
+      throw new ParseException("Encoded command line does not match the options");
+    }
+    final CommandLine cmd = new CommandLine();
+    for (int numParameters = dec.readCount(); numParameters > 0; numParameters--) {
+      final long ordinal = dec.readVarLong();
+      if ((ordinal < 0) || (ordinal >= options.getNumOptions())) {
+        throw corrupt();
+      }
+      final Option option = options.getOption((int) ordinal);
+      final Parameter parameter = new Parameter(option);
+      final List<SubOption> subOptions = option.getSubOptions();
+      final int numSubs = dec.readCount();
+      if ((numSubs > 0) && subOptions.isEmpty()) {
+        throw corrupt();
+      }
+      for (int i = 0; i < numSubs; i++) {
+        parameter.addSubParameter(dec.readValue(subOptions.get(Math.min(i, subOptions.size() - 1))));
+      }
+      for (int numKwSubs = dec.readCount(); numKwSubs > 0; numKwSubs--) {
+        final String key = dec.readString();
+        final SubOption subOption = option.getKwSubOption(key);
+        if (subOption == null) {
+          throw corrupt();
+        }
+        parameter.addKwSubParameter(key, dec.readValue(subOption));
+      }
+      cmd.addParameter(parameter);
+    }
+    for (int numRemArgs = dec.readCount(); numRemArgs > 0; numRemArgs--) {
+      cmd.addRemArg(dec.readString());
+    }
+    if (dec.idx != data.length) {
+      throw corrupt();
+    }
+    return cmd;
+  }
+
+  // no instances
+  private CommandLineCodec() {
+  }
+}
@@ -0,0 +1,495 @@
+/* CompactCommandLine.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Compact command line object, results of parsing. Unlike {@link CommandLine}, the parameters are not stored as
+ * objects: options are kept as ordinals within {@link Options} and sub-parameter values as offset/length pairs into
+ * a single shared character buffer. {@link Parameter} and {@link SubParameter} objects are only created on demand,
+ * when accessed through {@link #getParameter(int)} or {@link #getParameters()}.
+ *
+ * <p>The buffer may be allocated outside the Java heap, see
+ * {@link SeqParser#parseCompact(Options, String[], boolean, boolean)}. Once the object is closed, the buffer is
+ * released and the values can no longer be accessed.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class CompactCommandLine implements AutoCloseable {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(CompactCommandLine.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return "CompactCommandLine";
+  }
+
+  // constants
+  private static final int INITIAL_SIZE = 16;
+
+  /** The options the command line was parsed against. */
+  private final Options options;
+
+  /** Number of parameters. */
+  private int numParameters;
+
+  /** Ordinals of the options, by parameter. */
+  private int[] ordinals = new int[INITIAL_SIZE];
+
+  /** Index of the first positional sub-parameter, by parameter. */
+  private int[] firstSub = new int[INITIAL_SIZE];
+
+  /** Index of the first keyword sub-parameter, by parameter. */
+  private int[] firstKwSub = new int[INITIAL_SIZE];
+
+  /** Number of positional sub-parameters. */
+  private int numSubs;
+
+  /** Offsets of the positional sub-parameter values. */
+  private int[] subOffsets = new int[INITIAL_SIZE];
+
+  /** Lengths of the positional sub-parameter values. */
+  private int[] subLengths = new int[INITIAL_SIZE];
+
+  /** Number of keyword sub-parameters. */
+  private int numKwSubs;
+
+  /** Offsets of the keywords. */
+  private int[] keyOffsets = new int[INITIAL_SIZE];
+
+  /** Lengths of the keywords. */
+  private int[] keyLengths = new int[INITIAL_SIZE];
+
+  /** Offsets of the keyword sub-parameter values. */
+  private int[] kwSubOffsets = new int[INITIAL_SIZE];
+
+  /** Lengths of the keyword sub-parameter values. */
+  private int[] kwSubLengths = new int[INITIAL_SIZE];
+
+  /** The shared character buffer, <code>null</code> once closed. */
+  private volatile CharStore store;
+
+  /** List of remaining (unparsed) arguments. */
+  private List<String> remArgs = new ArrayList<>();
+
+  /**
+   * Gets the options the command line was parsed against.
+   *
+   * @return the options
+   */
+  public Options getOptions() {
+    return options;
+  }
+
+  /**
+   * Gets the number of parameters.
+   *
+   * @return the number of parameters
+   */
+  public int getNumParameters() {
+    return numParameters;
+  }
+
+  /**
+   * Gets the ordinal of the option describing a parameter.
+   *
+   * @param idx the index of the parameter
+   * @return the ordinal of the option
+   * @see Options#getOption(int)
+   */
+  public int getOrdinal(final int idx) {
+    checkIndex(idx, numParameters);
+    return ordinals[idx];
+  }
+
+  /**
+   * Gets the option describing a parameter.
+   *
+   * @param idx the index of the parameter
+   * @return the option
+   */
+  public Option getOption(final int idx) {
+    return options.getOption(getOrdinal(idx));
+  }
+
+  /**
+   * Gets the number of sub-parameters of a parameter.
+   *
+   * @param idx the index of the parameter
+   * @return the number of sub-parameters
+   */
+  public int getNumSubParameters(final int idx) {
+    checkIndex(idx, numParameters);
+    return ((idx + 1 < numParameters) ? firstSub[idx + 1] : numSubs) - firstSub[idx];
+  }
+
+  /**
+   * Gets the raw (string) value of a sub-parameter.
+   *
+   * @param idx the index of the parameter
+   * @param subIdx the index of the sub-parameter
+   * @return the raw (string) value
+   */
+  public String getSubParameterAsString(final int idx, final int subIdx) {
+    checkIndex(subIdx, getNumSubParameters(idx));
+    final int i = firstSub[idx] + subIdx;
+    return getStore().getString(subOffsets[i], subLengths[i]);
+  }
+
+  /**
+   * Gets a read-only view of the raw value of a sub-parameter. The view is valid until the object is closed.
+   *
+   * @param idx the index of the parameter
+   * @param subIdx the index of the sub-parameter
+   * @return the view of the raw value
+   */
+  public CharSequence getSubParameterAsCharSequence(final int idx, final int subIdx) {
+    checkIndex(subIdx, getNumSubParameters(idx));
+    final int i = firstSub[idx] + subIdx;
+    return getStore().view(subOffsets[i], subLengths[i]);
+  }
+
+  /**
+   * Gets the number of keyword sub-parameters of a parameter.
+   *
+   * @param idx the index of the parameter
+   * @return the number of keyword sub-parameters
+   */
+  public int getNumKwSubParameters(final int idx) {
+    checkIndex(idx, numParameters);
+    return ((idx + 1 < numParameters) ? firstKwSub[idx + 1] : numKwSubs) - firstKwSub[idx];
+  }
+
+  /**
+   * Checks if a keyword sub-parameter is set.
+   *
+   * @param idx the index of the parameter
+   * @param key the keyword
+   * @return <code>true</code> if the sub-parameter is set
+   */
+  public boolean hasKwSubParameter(final int idx, final String key) {
+    return findKey(idx, key) >= 0;
+  }
+
+  /**
+   * Gets the raw (string) value of a keyword sub-parameter.
+   *
+   * @param idx the index of the parameter
+   * @param key the keyword
+   * @return the raw (string) value or <code>null</code> if not set
+   */
+  public String getKwSubParameterAsString(final int idx, final String key) {
+    final int i = findKey(idx, key);
+    return (i < 0) ? null : getStore().getString(kwSubOffsets[i], kwSubLengths[i]);
+  }
+
+  /**
+   * Gets a read-only view of the raw value of a keyword sub-parameter. The view is valid until the object is
+   * closed.
+   *
+   * @param idx the index of the parameter
+   * @param key the keyword
+   * @return the view of the raw value or <code>null</code> if not set
+   */
+  public CharSequence getKwSubParameterAsCharSequence(final int idx, final String key) {
+    final int i = findKey(idx, key);
+    return (i < 0) ? null : getStore().view(kwSubOffsets[i], kwSubLengths[i]);
+  }
+
+  // gets the sub-option of a positional sub-parameter
+  private static SubOption getSubOption(final Option option, final int subIdx) {
+    final List<SubOption> subOptions = option.getSubOptions();
+    return subOptions.get(Math.min(subIdx, subOptions.size() - 1));
+  }
+
+  /**
+   * Gets a parameter, as a flyweight view of the arrays. The parameter object holds no values: its list and map
+   * of sub-parameters are views, creating the sub-parameter objects on access. The view is valid until
+   * the object is closed, see {@link #toCommandLine()} for a copy.
+   *
+   * @param idx the index of the parameter
+   * @return the parameter
+   */
+  public Parameter getParameter(final int idx) {
+    final Option option = getOption(idx);
+    final int numSub = getNumSubParameters(idx);
+    final int numKwSub = getNumKwSubParameters(idx);
+    final List<SubParameter> subParameters = new AbstractList<SubParameter>() {
+
+      @Override
+      public SubParameter get(final int subIdx) {
+        return SubParameter.ofChecked(getSubParameterAsString(idx, subIdx), getSubOption(option, subIdx));
+      }
+
+      @Override
+      public int size() {
+        return numSub;
+      }
+    };
+    final Map<String, SubParameter> kwSubParameters = new AbstractMap<String, SubParameter>() {
+
+      @Override
+      public SubParameter get(final Object key) {
+        if (!(key instanceof String)) {
+          return null;
+        }
+        final String str = getKwSubParameterAsString(idx, (String) key);
+        return (str == null) ? null : SubParameter.ofChecked(str, option.getKwSubOption((String) key));
+      }
+
+      @Override
+      public boolean containsKey(final Object key) {
+        return (key instanceof String) && hasKwSubParameter(idx, (String) key);
+      }
+
+      @Override
+      public int size() {
+        return numKwSub;  // the keywords of a parameter are stored once each
+      }
+
+      @Override
+      public Set<Map.Entry<String, SubParameter>> entrySet() {
+        return copyKwSubParameters(idx).entrySet();
+      }
+    };
+    return new Parameter(option, subParameters, kwSubParameters);
+  }
+
+  // copies the keyword sub-parameters of a parameter; a repeated keyword keeps the last value
+  private Map<String, SubParameter> copyKwSubParameters(final int idx) {
+    final Option option = getOption(idx);
+    final Map<String, SubParameter> res = new HashMap<>();
+    final int first = firstKwSub[idx];
+    for (int i = first; i < first + getNumKwSubParameters(idx); i++) {
+      final String key = getStore().getString(keyOffsets[i], keyLengths[i]);
+      res.put(key, SubParameter.ofChecked(getStore().getString(kwSubOffsets[i], kwSubLengths[i]),
+          option.getKwSubOption(key)));
+    }
+    return res;
+  }
+
+  // copies a parameter
+  private Parameter copyParameter(final int idx) {
+    final Option option = getOption(idx);
+    final Parameter parameter = new Parameter(option);
+    final int numSub = getNumSubParameters(idx);
+    for (int subIdx = 0; subIdx < numSub; subIdx++) {
+      parameter.addSubParameter(SubParameter.ofChecked(getSubParameterAsString(idx, subIdx),
+          getSubOption(option, subIdx)));
+    }
+    for (Map.Entry<String, SubParameter> entry : copyKwSubParameters(idx).entrySet()) {
+      parameter.addKwSubParameter(entry.getKey(), entry.getValue());
+    }
+    return parameter;
+  }
+
+  /**
+   * Gets a view of the list of parameters. The parameter objects are flyweight views created on access, see
+   * {@link #getParameter(int)}.
+   *
+   * @return the list of parameters
+   */
+  public List<Parameter> getParameters() {
+    return new AbstractList<Parameter>() {
+
+      @Override
+      public Parameter get(final int idx) {
+        return getParameter(idx);
+      }
+
+      @Override
+      public int size() {
+        return numParameters;
+      }
+    };
+  }
+
+  /**
+   * Gets the list of remaining (unparsed) arguments. The list is unmodifiable; if the arguments were parsed
+   * from an array, it is a view of the tail of that array, not a copy.
+   *
+   * @return the list of remaining (unparsed) arguments
+   */
+  public List<String> getRemArgs() {
+    return Collections.unmodifiableList(remArgs);
+  }
+
+  /**
+   * Checks if the object has been closed.
+   *
+   * @return <code>true</code> if closed
+   */
+  public boolean isClosed() {
+    return store == null;
+  }
+
+  /**
+   * Closes the object, releasing the buffer holding the values in bulk. It may be called while other threads
+   * read the values, which then fail with {@link IllegalStateException}.
+   */
+  @Override
+  public void close() {
+    final CharStore released = store;
+    store = null;
+    if (released != null) {
+      released.release();
+    }
+  }
+
+  /**
+   * Converts the compact command line to a {@link CommandLine} object.
+   *
+   * @return the command line object
+   */
+  public CommandLine toCommandLine() {
+    final CommandLine cmd = new CommandLine();
+    for (int idx = 0; idx < numParameters; idx++) {
+      cmd.addParameter(copyParameter(idx));
+    }
+    for (String arg : remArgs) {
+      cmd.addRemArg(arg);
+    }
+    return cmd;
+  }
+
+  // checks the index
+  private static void checkIndex(final int idx, final int size) {
+    if ((idx < 0) || (idx >= size)) {
+      throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + size);
+    }
+  }
+
+  // gets the buffer, provided the object is not closed
+  private CharStore getStore() {
+    if (store == null) {
+      throw new IllegalStateException("Command line closed");
+    }
+    return store;
+  }
+
+  // finds a keyword sub-parameter, returns its index or -1
+  private int findKey(final int idx, final String key) {
+    final int first = firstKwSub[idx];
+    for (int i = first + getNumKwSubParameters(idx) - 1; i >= first; i--) {
+      if (getStore().equals(keyOffsets[i], keyLengths[i], key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // grows an array if full
+  private static int[] grow(final int[] array, final int size) {
+    return (size < array.length) ? array : Arrays.copyOf(array, array.length * 2);
+  }
+
+  /**
+   * Gets a sink filling the compact command line object.
+   *
+   * @return the sink
+   */
+  ParseSink getSink() {
+    return new ParseSink() {
+
+      @Override
+      public void addParameter(final Option option) {
+        ordinals = grow(ordinals, numParameters);
+        firstSub = grow(firstSub, numParameters);
+        firstKwSub = grow(firstKwSub, numParameters);
+        ordinals[numParameters] = options.getOrdinal(option);
+        firstSub[numParameters] = numSubs;
+        firstKwSub[numParameters] = numKwSubs;
+        numParameters++;
+      }
+
+      @Override
+      public void addSubParameter(final String value, final SubOption subOption) {
+        subOffsets = grow(subOffsets, numSubs);
+        subLengths = grow(subLengths, numSubs);
+        subOffsets[numSubs] = getStore().append(value);
+        subLengths[numSubs] = value.length();
+        numSubs++;
+      }
+
+      @Override
+      public void addKwSubParameter(final String key, final String value, final SubOption subOption) {
+        int i = findKey(numParameters - 1, key);
+        if (i < 0) {
+          keyOffsets = grow(keyOffsets, numKwSubs);
+          keyLengths = grow(keyLengths, numKwSubs);
+          kwSubOffsets = grow(kwSubOffsets, numKwSubs);
+          kwSubLengths = grow(kwSubLengths, numKwSubs);
+          i = numKwSubs++;
+          keyOffsets[i] = getStore().append(key);
+          keyLengths[i] = key.length();
+        }
+        kwSubOffsets[i] = getStore().append(value);
+        kwSubLengths[i] = value.length();
+      }
+
+      @Override
+      public void addRemArg(final String arg) {
+        if (!(remArgs instanceof ArrayList)) {
+          remArgs = new ArrayList<>(remArgs);
+        }
+        remArgs.add(arg);
+      }
+
+      @Override
+      public void addRemArgs(final String[] args, final int from) {
+        final List<String> tail = Arrays.asList(args).subList(from, args.length);
+        if (remArgs.isEmpty()) {
+          remArgs = tail;
+        } else {
+          for (String arg : tail) {
+            addRemArg(arg);
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Creates the compact command line object.
+   *
+   * @param options the options the command line is parsed against
+   * @param direct if <code>true</code>, the values are stored outside the Java heap
+   */
+  CompactCommandLine(final Options options, final boolean direct) {
+    this.options = options;
+    store = direct ? new CharStore.Direct() : new CharStore.Heap(INITIAL_SIZE * INITIAL_SIZE);
+  }
+}
@@ -0,0 +1,371 @@
+/* DiskParseCache.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of parse results, kept in a memory-mapped file shared by successive processes. A process
+ * parsing arguments already parsed by an earlier one decodes the result stored by {@link CommandLineCodec}
+ * instead of parsing and checking the arguments again.
+ *
+ * <p>The results are keyed by the fingerprint of the options (see {@link Options#getFingerprint()}), the
+ * separator and the limits of the parser (see {@link SeqParser#setLimits(ParseLimits)}), the stop-on-non-option
+ * flag and the content of the arguments. Results stored for different options, including different parameters
+ * of the built-in types, or stored by a parser with less strict limits, are thus never returned; if
+ * a custom type changes without changing its specification (see {@link ParameterType#getSpec()}), the file
+ * must be cleared (see {@link #clear()}).
+ *
+ * <p>The file consists of a header, a hash table of record offsets and an append-only area of records. Its
+ * size is fixed when it is created; when the table or the record area is full, further results are not
+ * stored. Opening a file of different geometry or format fails, as other processes may have it mapped.
+ * Writes are serialized by a file lock, so the file may be shared by concurrent processes; within a process,
+ * it must be opened only once. Reads take no lock: each record carries a checksum of its value and the header
+ * a generation, incremented when the file is cleared, so a record being written or overwritten concurrently
+ * is ignored. Parsing errors are not cached.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class DiskParseCache implements AutoCloseable {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(DiskParseCache.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return "DiskParseCache";
+  }
+
+  // constants
+  private static final int MAGIC = 0x53515043;
+  private static final int VERSION = 4;
+  private static final int MAGIC_POS = 0;
+  private static final int VERSION_POS = 4;
+  private static final int SLOTS_POS = 8;
+  private static final int ENTRIES_POS = 12;
+  private static final int END_POS = 16;
+  private static final int GENERATION_POS = 24;
+  private static final int HEADER_SIZE = 32;
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /** The parser. */
+  private final SeqParser parser;
+
+  /** The file. */
+  private final RandomAccessFile file;
+
+  /** The channel of the file. */
+  private final FileChannel channel;
+
+  /** The mapped file. */
+  private final MappedByteBuffer buffer;
+
+  /** The number of slots of the hash table. */
+  private final int numSlots;
+
+  /** The offset of the record area. */
+  private final int dataStart;
+
+  /** Number of hits. */
+  private long hits;
+
+  /** Number of misses. */
+  private long misses;
+
+  // builds the key of a result
+  private static byte[] key(final long fingerprint, final char sep, final int[] limits,
+      final boolean stopOnNonOption, final String[] args) {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeLong(fingerprint);
+      out.writeChar(sep);
+      for (int limit : limits) {
+        out.writeInt(limit);
+      }
+      out.writeBoolean(stopOnNonOption);
+      WireFormat.writeArgs(out, args);
+    } catch (final IOException exception) {
+      throw new IllegalStateException(exception);  // cannot happen with a byte array
+    }
+    return bytes.toByteArray();
+  }
+
+  // hashes a key or a value
+  private static long hash(final byte[] bytes) {
+    long res = FNV_OFFSET;
+    for (byte b : bytes) {
+      res = (res ^ (b & 0xff)) * FNV_PRIME;
+    }
+    return res;
+  }
+
+  // gets the position of a slot
+  private static int slotPos(final int slot) {
+    return HEADER_SIZE + (slot * Long.BYTES);
+  }
+
+  // checks if a record matches a key, returning the offset of its value or -1
+  private int match(final int offset, final long hash, final byte[] key) {
+    final int limit = buffer.capacity();
+    if ((offset < dataStart) || (offset > limit - Long.BYTES - Integer.BYTES)
+        || (buffer.getLong(offset) != hash)) {
+      return -1;
+    }
+    final int keyLen = buffer.getInt(offset + Long.BYTES);
+    final int keyPos = offset + Long.BYTES + Integer.BYTES;
+    if ((keyLen != key.length) || (keyLen > limit - keyPos - Integer.BYTES)) {
+      return -1;
+    }
+    for (int i = 0; i < keyLen; i++) {
+      if (buffer.get(keyPos + i) != key[i]) {
+        return -1;
+      }
+    }
+    return keyPos + keyLen;
+  }
+
+  // looks up the encoded result, without locking
+  private byte[] lookup(final long hash, final byte[] key) {
+    final long generation = buffer.getLong(GENERATION_POS);
+    final int first = (int) Long.remainderUnsigned(hash, numSlots);
+    for (int i = 0, slot = first; i < numSlots; i++, slot = (slot + 1) % numSlots) {
+      final long offset = buffer.getLong(slotPos(slot));
+      if (offset == 0) {
+        break;
+      }
+      final int valuePos = match((int) offset, hash, key);
+      if (valuePos >= 0) {
+        final int len = buffer.getInt(valuePos);
+        final int dataPos = valuePos + Integer.BYTES + Long.BYTES;
+        if ((len < 0) || (len > buffer.capacity() - dataPos)) {
+          return null;
+        }
+        final byte[] res = new byte[len];
+        for (int j = 0; j < len; j++) {
+          res[j] = buffer.get(dataPos + j);
+        }
+        // a record being written, or overwritten after clearing, fails either check
+        if ((buffer.getLong(valuePos + Integer.BYTES) != hash(res))
+            || (buffer.getLong(GENERATION_POS) != generation)) {
+          log.fine("Inconsistent cached result ignored");
+          return null;
+        }
+        return res;
+      }
+    }
+    return null;
+  }
+
+  // stores the encoded result, unless the file is full
+  private void store(final long hash, final byte[] key, final byte[] value) throws IOException {
+    try (FileLock lock = channel.lock()) {
+      final int entries = buffer.getInt(ENTRIES_POS);
+      final long end = buffer.getLong(END_POS);
+      final long len = Long.BYTES + Integer.BYTES + key.length + Integer.BYTES + Long.BYTES + value.length;
+      if ((entries >= (numSlots - (numSlots / 4))) || (end < dataStart) || (end + len > buffer.capacity())) {
+        log.fine("Parse cache full");
+        return;
+      }
+      int slot = (int) Long.remainderUnsigned(hash, numSlots);
+      for (long offset = buffer.getLong(slotPos(slot)); offset != 0; offset = buffer.getLong(slotPos(slot))) {
+        if (match((int) offset, hash, key) >= 0) {  // stored by another process meanwhile
+          return;
+        }
+        slot = (slot + 1) % numSlots;
+      }
+      int pos = (int) end;
+      buffer.putLong(pos, hash);
+      pos += Long.BYTES;
+      buffer.putInt(pos, key.length);
+      pos += Integer.BYTES;
+      for (byte b : key) {
+        buffer.put(pos++, b);
+      }
+      buffer.putInt(pos, value.length);
+      pos += Integer.BYTES;
+      buffer.putLong(pos, hash(value));
+      pos += Long.BYTES;
+      for (byte b : value) {
+        buffer.put(pos++, b);
+      }
+      buffer.putLong(slotPos(slot), end);  // publish the record only after it is complete
+      buffer.putInt(ENTRIES_POS, entries + 1);
+      buffer.putLong(END_POS, pos);
+    }
+  }
+
+  /**
+   * Parses the arguments, or decodes the result of parsing identical arguments stored in the file.
+   *
+   * @param options the options
+   * @param args the arguments
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @return the command line object
+   * @throws ParseException on parsing error
+   */
+  public synchronized CommandLine parse(final Options options, final String[] args, final boolean stopOnNonOption)
+      throws ParseException {
+    final byte[] key = key(options.getFingerprint(), parser.getSep(), ParseLimits.getValues(parser.getLimits()),
+        stopOnNonOption, args);
+    final long hash = hash(key);
+    final byte[] value = lookup(hash, key);
+    if (value != null) {
+      try {
+        final CommandLine cmd = CommandLineCodec.decode(options, value);
+        hits++;
+        return cmd;
+      } catch (final ParseException exception) {
+        log.log(Level.FINE, "Corrupt cached result ignored", exception);
+      }
+    }
+    misses++;
+    final CommandLine cmd = parser.parse(options, args, stopOnNonOption);
+    try {
+      store(hash, key, CommandLineCodec.encode(options, cmd));
+    } catch (final IOException exception) {
+      log.log(Level.WARNING, "Storing parse result failed", exception);
+    }
+    return cmd;
+  }
+
+  /**
+   * Gets the number of calls answered from the file.
+   *
+   * @return the number of hits
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets the number of calls that had to parse.
+   *
+   * @return the number of misses
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Gets the number of results stored in the file.
+   *
+   * @return the number of results
+   */
+  public synchronized int getSize() {
+    return buffer.getInt(ENTRIES_POS);
+  }
+
+  // empties the file, which must be locked
+  private void reset() {
+    buffer.putLong(GENERATION_POS, buffer.getLong(GENERATION_POS) + 1);
+    for (int slot = 0; slot < numSlots; slot++) {
+      buffer.putLong(slotPos(slot), 0);
+    }
+    buffer.putInt(ENTRIES_POS, 0);
+    buffer.putLong(END_POS, dataStart);
+  }
+
+  /**
+   * Removes all results stored in the file.
+   *
+   * @throws IOException on I/O error
+   */
+  public synchronized void clear() throws IOException {
+    try (FileLock lock = channel.lock()) {
+      reset();
+    }
+  }
+
+  /**
+   * Closes the file. The stored results are kept.
+   *
+   * @throws IOException on I/O error
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    buffer.force();
+    file.close();
+  }
+
+  /**
+   * Opens the cache, creating the file if it does not exist or is empty.
+   *
+   * @param parser the parser, which determines the separator and the limits
+   * @param path the path of the file
+   * @param numSlots the maximum number of results, of which three quarters are used
+   * @param dataSize the size of the record area in bytes
+   * @throws IOException if the file cannot be opened, or if it has a different geometry or format
+   */
+  public DiskParseCache(final SeqParser parser, final Path path, final int numSlots, final int dataSize)
+      throws IOException {
+    if (numSlots < 1) {
+      throw new IllegalArgumentException("Invalid number of slots");
+    }
+    final long size = (long) HEADER_SIZE + ((long) numSlots * Long.BYTES) + dataSize;
+    if ((dataSize < 1) || (size > Integer.MAX_VALUE)) {
+      throw new IllegalArgumentException("Invalid size");
+    }
+    this.parser = parser;
+    this.numSlots = numSlots;
+    dataStart = slotPos(numSlots);
+    file = new RandomAccessFile(path.toFile(), "rw");
+    try {
+      channel = file.getChannel();
+      try (FileLock lock = channel.lock()) {
+        final boolean empty = (file.length() == 0);
+        if (!empty && (file.length() != size)) {
+          throw new IOException("Parse cache file of different size: " + path);
+        }
+        if (empty) {
+          file.setLength(size);
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(MAGIC_POS) == 0) {  // new, or its initialization was interrupted
+          log.fine("Parse cache file initialized");
+          buffer.putInt(VERSION_POS, VERSION);
+          buffer.putInt(SLOTS_POS, numSlots);
+          reset();
+          buffer.putInt(MAGIC_POS, MAGIC);
+        } else if ((buffer.getInt(MAGIC_POS) != MAGIC) || (buffer.getInt(VERSION_POS) != VERSION)
+            || (buffer.getInt(SLOTS_POS) != numSlots)) {
+          throw new IOException("Parse cache file of different format or geometry: " + path);
+        }
+      }
+    } catch (final IOException | RuntimeException exception) {
+      file.close();
+      throw exception;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+/* DoubleParameterType.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Parameter type of floating-point values, accessed as primitives. {@link SubParameter#getAsDouble()} and
+ * {@link SubParameter#getAsFloat()} use the conversion provided by the type, so typed access does not box the
+ * value; the built-in float and double types implement this interface.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public interface DoubleParameterType extends ParameterType {
+
+  /**
+   * Converts the string to a primitive value.
+   *
+   * @param str the string
+   * @return the converted value
+   * @throws NumberFormatException if the string cannot be converted
+   */
+  double parseDouble(java.lang.String str);
+
+  /**
+   * Converts the string to a primitive float value. The default implementation narrows the double value.
+   *
+   * @param str the string
+   * @return the converted value
+   * @throws NumberFormatException if the string cannot be converted
+   */
+  default float parseFloat(final java.lang.String str) {
+    return (float) parseDouble(str);
+  }
+
+  /**
+   * Checks a converted value, e.g. against a range. The default implementation accepts all values.
+   *
+   * @param value the converted value
+   * @return <code>true</code> if the value is acceptable
+   */
+  default boolean checkDouble(final double value) {
+    return true;
+  }
+
+  /**
+   * Type-checks the string, by converting it and checking the converted value.
+   *
+   * @param str the string to be checked
+   * @return <code>true</code> if correct type
+   */
+  @Override
+  default boolean check(final java.lang.String str) {
+    if (str == null) {
+      return false;
+    }
+    try {
+      return checkDouble(parseDouble(str));
+    } catch (final NumberFormatException exception) {
+      return false;
+    }
+  }
+
+  /**
+   * Gets the converted value, boxed.
+   *
+   * @param val the value as a string
+   * @return the converted value
+   */
+  @Override
+  default Object get(final java.lang.String val) {
+    return parseDouble(val);
+  }
+
+  /**
+   * Creates the built-in double range type, a starting point for composing types.
+   *
+   * @param min lower limit
+   * @param max upper limit
+   * @return the new type
+   */
+  static DoubleParameterType range(final double min, final double max) {
+    return new DoubleType(false, min, false, max);
+  }
+
+  /**
+   * Composes the type with a predicate, which must hold as well. The string is converted once and the checks
+   * of both types are applied to the converted value.
+   *
+   * @param predicate the predicate
+   * @return the composed type
+   */
+  default DoubleParameterType and(final DoublePredicate predicate) {
+    final DoubleParameterType base = this;
+    return new DoubleParameterType() {
+      @Override
+      public double parseDouble(final java.lang.String str) {
+        return base.parseDouble(str);
+      }
+
+      @Override
+      public boolean checkDouble(final double value) {
+        return base.checkDouble(value) && predicate.test(value);
+      }
+    };
+  }
+
+  /**
+   * Composes the type with a predicate, either of which must hold. The string must still be convertible; it is
+   * converted once.
+   *
+   * @param predicate the predicate
+   * @return the composed type
+   */
+  default DoubleParameterType or(final DoublePredicate predicate) {
+    final DoubleParameterType base = this;
+    return new DoubleParameterType() {
+      @Override
+      public double parseDouble(final java.lang.String str) {
+        return base.parseDouble(str);
+      }
+
+      @Override
+      public boolean checkDouble(final double value) {
+        return base.checkDouble(value) || predicate.test(value);
+      }
+    };
+  }
+
+  /**
+   * Negates the check of the converted value. The string must still be convertible.
+   *
+   * @return the negated type
+   */
+  default DoubleParameterType negate() {
+    final DoubleParameterType base = this;
+    return new DoubleParameterType() {
+      @Override
+      public double parseDouble(final java.lang.String str) {
+        return base.parseDouble(str);
+      }
+
+      @Override
+      public boolean checkDouble(final double value) {
+        return !base.checkDouble(value);
+      }
+    };
+  }
+
+  /**
+   * Maps the converted value. The check of this type is applied to the value before mapping, the checks
+   * composed with the mapped type to the mapped value; strings failing the former are not convertible by
+   * the mapped type.
+   *
+   * @param mapper the mapping function
+   * @return the mapped type
+   */
+  default DoubleParameterType map(final DoubleUnaryOperator mapper) {
+    final DoubleParameterType base = this;
+    return new DoubleParameterType() {
+      @Override
+      public double parseDouble(final java.lang.String str) {
+        final double value = base.parseDouble(str);
+        if (!base.checkDouble(value)) {
+          throw new NumberFormatException("Invalid value: " + str);
+        }
+        return mapper.applyAsDouble(value);
+      }
+    };
+  }
+}
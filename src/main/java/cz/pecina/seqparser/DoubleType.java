@@ -0,0 +1,111 @@
+/* DoubleType.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+/**
+ * Built-in float or double type, accepting the strings accepted by
+ * {@link java.lang.Float#parseFloat(java.lang.String)} or {@link java.lang.Double#parseDouble(java.lang.String)},
+ * optionally within a range. Values are converted without boxing.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+final class DoubleType extends BuiltinType implements DoubleParameterType {
+
+  /** If <code>true</code>, the values are floats. */
+  private final boolean single;
+
+  /** If <code>true</code>, all values, including NaN, are accepted. */
+  private final boolean any;
+
+  /** The lower limit. */
+  private final double min;
+
+  /** If <code>true</code>, the lower limit is excluded. */
+  private final boolean minExclusive;
+
+  /** The upper limit. */
+  private final double max;
+
+  @Override
+  public double parseDouble(final java.lang.String str) {
+    return single ? java.lang.Float.parseFloat(str) : java.lang.Double.parseDouble(str);
+  }
+
+  @Override
+  public float parseFloat(final java.lang.String str) {
+    return java.lang.Float.parseFloat(str);
+  }
+
+  @Override
+  public boolean checkDouble(final double value) {
+    return any || ((minExclusive ? (value > min) : (value >= min)) && (value <= max));
+  }
+
+  /**
+   * Gets the converted value, boxed.
+   *
+   * @param val the value as a string
+   * @return the converted value, as {@link java.lang.Float} for floats
+   */
+  @Override
+  public Object get(final java.lang.String val) {
+    return single ? (Object) parseFloat(val) : (Object) parseDouble(val);
+  }
+
+  @Override
+  public java.lang.String getSpec() {
+    return "Double(" + single + "," + any + "," + min + "," + minExclusive + "," + max + ")";
+  }
+
+  /**
+   * Creates the type, accepting all values.
+   *
+   * @param single if <code>true</code>, the values are floats
+   */
+  DoubleType(final boolean single) {
+    super(KIND_DOUBLE);
+    this.single = single;
+    any = true;
+    min = java.lang.Double.NEGATIVE_INFINITY;
+    minExclusive = false;
+    max = java.lang.Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Creates the type, accepting values within a range.
+   *
+   * @param single if <code>true</code>, the values are floats
+   * @param min the lower limit
+   * @param minExclusive if <code>true</code>, the lower limit is excluded
+   * @param max the upper limit
+   */
+  DoubleType(final boolean single, final double min, final boolean minExclusive, final double max) {
+    super(KIND_DOUBLE);
+    this.single = single;
+    any = false;
+    this.min = min;
+    this.minExclusive = minExclusive;
+    this.max = max;
+  }
+}
@@ -0,0 +1,182 @@
+/* IntParameterType.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Parameter type of integer values, accessed as primitives. {@link SubParameter#getAsInt()} uses the conversion
+ * provided by the type, so typed access does not box the value; the built-in integer types implement
+ * this interface.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public interface IntParameterType extends ParameterType {
+
+  /**
+   * Converts the string to a primitive value.
+   *
+   * @param str the string
+   * @return the converted value
+   * @throws NumberFormatException if the string cannot be converted
+   */
+  int parseInt(java.lang.String str);
+
+  /**
+   * Checks a converted value, e.g. against a range. The default implementation accepts all values.
+   *
+   * @param value the converted value
+   * @return <code>true</code> if the value is acceptable
+   */
+  default boolean checkInt(final int value) {
+    return true;
+  }
+
+  /**
+   * Type-checks the string, by converting it and checking the converted value.
+   *
+   * @param str the string to be checked
+   * @return <code>true</code> if correct type
+   */
+  @Override
+  default boolean check(final java.lang.String str) {
+    if (str == null) {
+      return false;
+    }
+    try {
+      return checkInt(parseInt(str));
+    } catch (final NumberFormatException exception) {
+      return false;
+    }
+  }
+
+  /**
+   * Gets the converted value, boxed.
+   *
+   * @param val the value as a string
+   * @return the converted value
+   */
+  @Override
+  default Object get(final java.lang.String val) {
+    return parseInt(val);
+  }
+
+  /**
+   * Creates the built-in integer range type, a starting point for composing types.
+   *
+   * @param min lower limit
+   * @param max upper limit
+   * @return the new type
+   */
+  static IntParameterType range(final int min, final int max) {
+    return new IntType(min, max);
+  }
+
+  /**
+   * Composes the type with a predicate, which must hold as well. The string is converted once and the checks
+   * of both types are applied to the converted value.
+   *
+   * @param predicate the predicate
+   * @return the composed type
+   */
+  default IntParameterType and(final IntPredicate predicate) {
+    final IntParameterType base = this;
+    return new IntParameterType() {
+      @Override
+      public int parseInt(final java.lang.String str) {
+        return base.parseInt(str);
+      }
+
+      @Override
+      public boolean checkInt(final int value) {
+        return base.checkInt(value) && predicate.test(value);
+      }
+    };
+  }
+
+  /**
+   * Composes the type with a predicate, either of which must hold. The string must still be convertible; it is
+   * converted once.
+   *
+   * @param predicate the predicate
+   * @return the composed type
+   */
+  default IntParameterType or(final IntPredicate predicate) {
+    final IntParameterType base = this;
+    return new IntParameterType() {
+      @Override
+      public int parseInt(final java.lang.String str) {
+        return base.parseInt(str);
+      }
+
+      @Override
+      public boolean checkInt(final int value) {
+        return base.checkInt(value) || predicate.test(value);
+      }
+    };
+  }
+
+  /**
+   * Negates the check of the converted value. The string must still be convertible.
+   *
+   * @return the negated type
+   */
+  default IntParameterType negate() {
+    final IntParameterType base = this;
+    return new IntParameterType() {
+      @Override
+      public int parseInt(final java.lang.String str) {
+        return base.parseInt(str);
+      }
+
+      @Override
+      public boolean checkInt(final int value) {
+        return !base.checkInt(value);
+      }
+    };
+  }
+
+  /**
+   * Maps the converted value. The check of this type is applied to the value before mapping, the checks
+   * composed with the mapped type to the mapped value; strings failing the former are not convertible by
+   * the mapped type.
+   *
+   * @param mapper the mapping function
+   * @return the mapped type
+   */
+  default IntParameterType map(final IntUnaryOperator mapper) {
+    final IntParameterType base = this;
+    return new IntParameterType() {
+      @Override
+      public int parseInt(final java.lang.String str) {
+        final int value = base.parseInt(str);
+        if (!base.checkInt(value)) {
+          throw new NumberFormatException("Invalid value: " + str);
+        }
+        return mapper.applyAsInt(value);
+      }
+    };
+  }
+}
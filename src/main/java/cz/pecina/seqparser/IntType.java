@@ -0,0 +1,125 @@
+/* IntType.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+/**
+ * Built-in integer type, accepting the strings accepted by {@link java.lang.Integer#parseInt(java.lang.String)}
+ * within a range. Strings are checked in a single pass, without creating any objects.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+final class IntType extends BuiltinType implements IntParameterType {
+
+  /** The result of scanning an invalid string. */
+  static final long INVALID = java.lang.Long.MIN_VALUE;
+
+  /** The lower limit. */
+  private final int min;
+
+  /** The upper limit. */
+  private final int max;
+
+  /**
+   * Scans a string, following {@link java.lang.Integer#parseInt(java.lang.String)}.
+   *
+   * @param str the string
+   * @return the value, or {@link #INVALID} if the string is invalid
+   */
+  static long scan(final java.lang.String str) {
+    final int len = str.length();
+    if (len == 0) {
+      return INVALID;
+    }
+    int idx = 0;
+    boolean negative = false;
+    int limit = -java.lang.Integer.MAX_VALUE;
+    final char first = str.charAt(0);
+    if (first < '0') {
+      if (first == '-') {
+        negative = true;
+        limit = java.lang.Integer.MIN_VALUE;
+      } else if (first != '+') {
+        return INVALID;
+      }
+      if (len == 1) {
+        return INVALID;
+      }
+      idx++;
+    }
+    final int multmin = limit / 10;
+    int res = 0;  // accumulated negatively, as the range of negative numbers is larger
+    while (idx < len) {
+      final int digit = Character.digit(str.charAt(idx++), 10);
+      if ((digit < 0) || (res < multmin)) {
+        return INVALID;
+      }
+      res *= 10;
+      if (res < (limit + digit)) {
+        return INVALID;
+      }
+      res -= digit;
+    }
+    return negative ? res : -res;
+  }
+
+  @Override
+  public int parseInt(final java.lang.String str) {
+    final long res = scan(str);
+    if (res == INVALID) {
+      throw new NumberFormatException("Invalid value: " + str);
+    }
+    return (int) res;
+  }
+
+  @Override
+  public boolean checkInt(final int value) {
+    return (value >= min) && (value <= max);
+  }
+
+  @Override
+  public boolean check(final java.lang.String str) {
+    if (str == null) {
+      return false;
+    }
+    final long res = scan(str);
+    return (res != INVALID) && checkInt((int) res);
+  }
+
+  @Override
+  public java.lang.String getSpec() {
+    return "Int(" + min + "," + max + ")";
+  }
+
+  /**
+   * Creates the type.
+   *
+   * @param min the lower limit
+   * @param max the upper limit
+   */
+  IntType(final int min, final int max) {
+    super(KIND_INT);
+    this.min = min;
+    this.max = max;
+  }
+}
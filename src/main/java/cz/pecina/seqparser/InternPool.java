@@ -0,0 +1,169 @@
+/* InternPool.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Bounded pool of strings, letting identical sub-parameter values and keywords retained in many command lines
+ * share one string. The pool is enabled by {@link SeqParser#setInternPool(InternPool)}.
+ *
+ * <p>The pool is direct-mapped: each string has one slot, determined by its hash code, and a string replaces
+ * a different one occupying its slot. The memory used is thus bounded by the number of slots and the length of
+ * the strings, while frequent values stay in the pool. The pool may be shared by concurrent parsers.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class InternPool {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(InternPool.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return "InternPool";
+  }
+
+  // constants
+  private static final int MAX_SLOTS = 1 << 30;
+
+  /**
+   * Estimated size in bytes of a string object and its character array, exclusive of the characters.
+   */
+  public static final int STRING_OVERHEAD = 40;
+
+  /** The slots. */
+  private final AtomicReferenceArray<String> slots;
+
+  /** The mask selecting a slot. */
+  private final int mask;
+
+  /** Number of strings found in the pool. */
+  private final LongAdder hits = new LongAdder();
+
+  /** Number of strings not found in the pool. */
+  private final LongAdder misses = new LongAdder();
+
+  /** Estimated number of bytes saved. */
+  private final LongAdder savedBytes = new LongAdder();
+
+  /**
+   * Gets the pooled string equal to a string, adding the string to the pool if there is none.
+   *
+   * @param str the string
+   * @return the pooled string
+   */
+  public String intern(final String str) {
+    final int hash = str.hashCode();
+    final int slot = (hash ^ (hash >>> 16)) & mask;
+    final String pooled = slots.get(slot);
+    if (str.equals(pooled)) {
+      if (pooled != str) {
+        hits.increment();
+        savedBytes.add(STRING_OVERHEAD + ((long) Character.BYTES * str.length()));
+      }
+      return pooled;
+    }
+    misses.increment();
+    slots.set(slot, str);
+    return str;
+  }
+
+  /**
+   * Gets the number of slots.
+   *
+   * @return the number of slots
+   */
+  public int getNumSlots() {
+    return slots.length();
+  }
+
+  /**
+   * Gets the number of strings found in the pool.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Gets the number of strings not found in the pool.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Gets the ratio of hits to all look-ups.
+   *
+   * @return the hit rate, or <code>0</code> if there have been no look-ups
+   */
+  public double getHitRate() {
+    final long h = getHits();
+    final long total = h + getMisses();
+    return (total == 0) ? 0 : ((double) h / total);
+  }
+
+  /**
+   * Gets the estimated number of bytes saved, i.e. the size of the strings replaced by pooled ones, see
+   * {@link #STRING_OVERHEAD}. The strings are only saved if the caller does not retain them otherwise.
+   *
+   * @return the estimated number of bytes saved
+   */
+  public long getSavedBytes() {
+    return savedBytes.sum();
+  }
+
+  /**
+   * Removes all strings from the pool and resets the counters.
+   */
+  public void clear() {
+    for (int i = 0; i < slots.length(); i++) {
+      slots.set(i, null);
+    }
+    hits.reset();
+    misses.reset();
+    savedBytes.reset();
+  }
+
+  /**
+   * Creates the pool.
+   *
+   * @param size the minimum number of slots, rounded up to a power of two
+   */
+  public InternPool(final int size) {
+    if ((size < 1) || (size > MAX_SLOTS)) {
+      throw new IllegalArgumentException("Invalid pool size");
+    }
+    final int numSlots = (size == 1) ? 1 : Integer.highestOneBit(size - 1) << 1;
+    slots = new AtomicReferenceArray<>(numSlots);
+    mask = numSlots - 1;
+  }
+}
@@ -0,0 +1,182 @@
+/* LongParameterType.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Parameter type of long integer values, accessed as primitives. {@link SubParameter#getAsLong()} uses the conversion
+ * provided by the type, so typed access does not box the value; the built-in long integer types implement
+ * this interface.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public interface LongParameterType extends ParameterType {
+
+  /**
+   * Converts the string to a primitive value.
+   *
+   * @param str the string
+   * @return the converted value
+   * @throws NumberFormatException if the string cannot be converted
+   */
+  long parseLong(java.lang.String str);
+
+  /**
+   * Checks a converted value, e.g. against a range. The default implementation accepts all values.
+   *
+   * @param value the converted value
+   * @return <code>true</code> if the value is acceptable
+   */
+  default boolean checkLong(final long value) {
+    return true;
+  }
+
+  /**
+   * Type-checks the string, by converting it and checking the converted value.
+   *
+   * @param str the string to be checked
+   * @return <code>true</code> if correct type
+   */
+  @Override
+  default boolean check(final java.lang.String str) {
+    if (str == null) {
+      return false;
+    }
+    try {
+      return checkLong(parseLong(str));
+    } catch (final NumberFormatException exception) {
+      return false;
+    }
+  }
+
+  /**
+   * Gets the converted value, boxed.
+   *
+   * @param val the value as a string
+   * @return the converted value
+   */
+  @Override
+  default Object get(final java.lang.String val) {
+    return parseLong(val);
+  }
+
+  /**
+   * Creates the built-in long integer range type, a starting point for composing types.
+   *
+   * @param min lower limit
+   * @param max upper limit
+   * @return the new type
+   */
+  static LongParameterType range(final long min, final long max) {
+    return new LongType(LongType.PLAIN, min, max);
+  }
+
+  /**
+   * Composes the type with a predicate, which must hold as well. The string is converted once and the checks
+   * of both types are applied to the converted value.
+   *
+   * @param predicate the predicate
+   * @return the composed type
+   */
+  default LongParameterType and(final LongPredicate predicate) {
+    final LongParameterType base = this;
+    return new LongParameterType() {
+      @Override
+      public long parseLong(final java.lang.String str) {
+        return base.parseLong(str);
+      }
+
+      @Override
+      public boolean checkLong(final long value) {
+        return base.checkLong(value) && predicate.test(value);
+      }
+    };
+  }
+
+  /**
+   * Composes the type with a predicate, either of which must hold. The string must still be convertible; it is
+   * converted once.
+   *
+   * @param predicate the predicate
+   * @return the composed type
+   */
+  default LongParameterType or(final LongPredicate predicate) {
+    final LongParameterType base = this;
+    return new LongParameterType() {
+      @Override
+      public long parseLong(final java.lang.String str) {
+        return base.parseLong(str);
+      }
+
+      @Override
+      public boolean checkLong(final long value) {
+        return base.checkLong(value) || predicate.test(value);
+      }
+    };
+  }
+
+  /**
+   * Negates the check of the converted value. The string must still be convertible.
+   *
+   * @return the negated type
+   */
+  default LongParameterType negate() {
+    final LongParameterType base = this;
+    return new LongParameterType() {
+      @Override
+      public long parseLong(final java.lang.String str) {
+        return base.parseLong(str);
+      }
+
+      @Override
+      public boolean checkLong(final long value) {
+        return !base.checkLong(value);
+      }
+    };
+  }
+
+  /**
+   * Maps the converted value. The check of this type is applied to the value before mapping, the checks
+   * composed with the mapped type to the mapped value; strings failing the former are not convertible by
+   * the mapped type.
+   *
+   * @param mapper the mapping function
+   * @return the mapped type
+   */
+  default LongParameterType map(final LongUnaryOperator mapper) {
+    final LongParameterType base = this;
+    return new LongParameterType() {
+      @Override
+      public long parseLong(final java.lang.String str) {
+        final long value = base.parseLong(str);
+        if (!base.checkLong(value)) {
+          throw new NumberFormatException("Invalid value: " + str);
+        }
+        return mapper.applyAsLong(value);
+      }
+    };
+  }
+}
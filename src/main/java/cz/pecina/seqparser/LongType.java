@@ -0,0 +1,211 @@
+/* LongType.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+/**
+ * Parameter type of long integers, optionally followed by a unit, checked and converted in a single pass without
+ * creating any objects. Plain long integers have an optional sign; byte sizes and durations are non-negative and
+ * are converted to bytes and nanoseconds, respectively.
+ *
+ * <p>Byte sizes consist of a number optionally followed by <code>B</code>, or by one of the binary prefixes
+ * <code>K</code>, <code>M</code>, <code>G</code>, <code>T</code>, <code>P</code> and <code>E</code> (in either
+ * case), themselves optionally followed by <code>B</code> or <code>iB</code>, e.g. <code>64M</code>,
+ * <code>2GiB</code>. Durations consist of a number followed by one of the units <code>ns</code>,
+ * <code>us</code>, <code>ms</code>, <code>s</code>, <code>m</code>, <code>h</code> and <code>d</code>, e.g.
+ * <code>500ms</code>, <code>5m</code>.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+final class LongType extends BuiltinType implements LongParameterType {
+
+  /** Unit of plain long integers. */
+  static final int PLAIN = 0;
+
+  /** Unit of byte sizes. */
+  static final int BYTE_SIZE = 1;
+
+  /** Unit of durations. */
+  static final int DURATION = 2;
+
+  /** The result of scanning an invalid string. */
+  static final long INVALID = java.lang.Long.MIN_VALUE;
+
+  // constants
+  private static final java.lang.String MIN_STRING = "-9223372036854775808";
+  private static final java.lang.String BINARY_PREFIXES = "KMGTPE";
+  private static final int BINARY_SHIFT = 10;
+  private static final java.lang.String[] DURATION_UNITS = {"ns", "us", "ms", "s", "m", "h", "d"};
+  private static final long[] DURATION_NANOS = {
+    1L, 1_000L, 1_000_000L, 1_000_000_000L, 60_000_000_000L, 3_600_000_000_000L, 86_400_000_000_000L};
+
+  /** The unit. */
+  private final int unit;
+
+  /** The lower limit. */
+  private final long min;
+
+  /** The upper limit. */
+  private final long max;
+
+  // gets the multiplier of a byte-size suffix, or 0 if invalid
+  private static long byteMultiplier(final java.lang.String str, final int start) {
+    final int len = str.length() - start;
+    if (len == 0) {
+      return 1;
+    }
+    if ((len == 1) && (str.charAt(start) == 'B')) {
+      return 1;
+    }
+    final int prefix = BINARY_PREFIXES.indexOf(Character.toUpperCase(str.charAt(start)));
+    if ((prefix < 0)
+        || ((len == 2) && (str.charAt(start + 1) != 'B'))
+        || ((len == 3) && ((str.charAt(start + 1) != 'i') || (str.charAt(start + 2) != 'B')))
+        || (len > 3)) {
+      return 0;
+    }
+    return 1L << (BINARY_SHIFT * (prefix + 1));
+  }
+
+  // gets the multiplier of a duration suffix, or 0 if invalid
+  private static long durationMultiplier(final java.lang.String str, final int start) {
+    final int len = str.length() - start;
+    for (int i = 0; i < DURATION_UNITS.length; i++) {
+      final java.lang.String u = DURATION_UNITS[i];
+      if ((u.length() == len) && str.startsWith(u, start)) {
+        return DURATION_NANOS[i];
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Scans a string. {@link #INVALID} is returned for invalid strings, but also for the plain long integer
+   * <code>Long.MIN_VALUE</code>, which must be told apart by the caller.
+   *
+   * @param unit the unit
+   * @param str the string
+   * @return the value, in bytes for byte sizes and in nanoseconds for durations
+   */
+  static long scan(final int unit, final java.lang.String str) {
+    final int len = str.length();
+    int idx = 0;
+    boolean negative = false;
+    if ((unit == PLAIN) && (len > 0) && ((str.charAt(0) == '-') || (str.charAt(0) == '+'))) {
+      negative = (str.charAt(0) == '-');
+      idx++;
+    }
+    final int digits = idx;
+    long res = 0;  // accumulated negatively, as the range of negative numbers is larger
+    for (; idx < len; idx++) {
+      final int digit = Character.digit(str.charAt(idx), 10);  // any Unicode digit, as Long.parseLong
+      if (digit < 0) {
+        break;
+      }
+      if (res < (java.lang.Long.MIN_VALUE / 10)) {
+        return INVALID;
+      }
+      res *= 10;
+      if (res < (java.lang.Long.MIN_VALUE + digit)) {
+        return INVALID;
+      }
+      res -= digit;
+    }
+    if ((idx == digits) || (!negative && (res == java.lang.Long.MIN_VALUE))) {
+      return INVALID;
+    }
+    if (unit == PLAIN) {
+      return (idx < len) ? INVALID : (negative ? res : -res);
+    }
+    final long multiplier = (unit == BYTE_SIZE) ? byteMultiplier(str, idx) : durationMultiplier(str, idx);
+    if ((multiplier == 0) || (-res > (java.lang.Long.MAX_VALUE / multiplier))) {
+      return INVALID;
+    }
+    return -res * multiplier;
+  }
+
+  /**
+   * Converts the string.
+   *
+   * @param str the string
+   * @return the value, in bytes for byte sizes and in nanoseconds for durations
+   * @throws NumberFormatException if the string is invalid
+   */
+  @Override
+  public long parseLong(final java.lang.String str) {
+    final long res = scan(unit, str);
+    if ((res == INVALID) && !((unit == PLAIN) && str.equals(MIN_STRING))) {
+      throw new NumberFormatException("Invalid value: " + str);
+    }
+    return res;
+  }
+
+  @Override
+  public boolean checkLong(final long value) {
+    return (value >= min) && (value <= max);
+  }
+
+  @Override
+  public boolean check(final java.lang.String str) {
+    if (str == null) {
+      return false;
+    }
+    final long res = scan(unit, str);
+    if (res == INVALID) {
+      return (unit == PLAIN) && (min == java.lang.Long.MIN_VALUE) && str.equals(MIN_STRING);
+    }
+    return checkLong(res);
+  }
+
+  /**
+   * Gets the value.
+   *
+   * @param val the value as a string
+   * @return the value, as {@link java.lang.Long} for plain long integers and byte sizes, as
+   *         {@link java.time.Duration} for durations
+   */
+  @Override
+  public Object get(final java.lang.String val) {
+    final long res = parseLong(val);
+    return (unit == DURATION) ? java.time.Duration.ofNanos(res) : (Object) res;
+  }
+
+  @Override
+  public java.lang.String getSpec() {
+    return "Long(" + unit + "," + min + "," + max + ")";
+  }
+
+  /**
+   * Creates the type.
+   *
+   * @param unit the unit
+   * @param min the lower limit
+   * @param max the upper limit
+   */
+  LongType(final int unit, final long min, final long max) {
+    super(KIND_LONG);
+    this.unit = unit;
+    this.min = min;
+    this.max = max;
+  }
+}
@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
@@ -73,6 +74,9 @@ public final class Option {
   /** Map of keyword sub-options. */
   private final Map<String, SubOption> kwSubOptions = new HashMap<>();
 
+  /** The fingerprint, or <code>0</code> if not computed yet. */
+  private volatile long fingerprint;
+
   /**
    * Gets the short option string.
    *
@@ -145,6 +149,7 @@ public final class Option {
    */
   public Option addSubOption(final SubOption subOption) {
     subOptions.add(subOption);
+    fingerprint = 0;
     return this;
   }
 
@@ -180,9 +185,34 @@ public final class Option {
       throw new ParseException("Invalid sub-option string");
     }
     kwSubOptions.put(key, subOption);
+    fingerprint = 0;
     return this;
   }
 
+  /**
+   * Gets the fingerprint of the option, its part of {@link Options#getFingerprint()}. It is computed once and
+   * recomputed only after a sub-option is added.
+   *
+   * @return the fingerprint
+   */
+  long getFingerprint() {
+    long res = fingerprint;
+    if (res == 0) {
+      res = Options.hash(Options.hash(Options.FNV_OFFSET, shortOpt), longOpt);
+      res = Options.hash(Options.hash(res, minParameters), maxParameters);
+      res = Options.hash(res, subOptions.size());
+      for (SubOption subOption : subOptions) {
+        res = Options.hash(res, subOption.getType().getSpec());
+      }
+      res = Options.hash(res, kwSubOptions.size());
+      for (Map.Entry<String, SubOption> entry : new TreeMap<>(kwSubOptions).entrySet()) {
+        res = Options.hash(Options.hash(res, entry.getKey()), entry.getValue().getType().getSpec());
+      }
+      fingerprint = res;
+    }
+    return res;
+  }
+
   /**
    * Creates the option object with no sub-parameters.
    *
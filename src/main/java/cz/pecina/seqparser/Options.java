@@ -24,6 +24,7 @@ package cz.pecina.seqparser;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -54,6 +55,69 @@ public final class Options {
   /** Map of options by long option string. */
   private final Map<String, Option> longMap = new HashMap<>();
 
+  /** Map of ordinals by option. */
+  private final Map<Option, Integer> ordinals = new IdentityHashMap<>();
+
+  /** List of constraints. */
+  private final List<Constraint> constraints = new ArrayList<>();
+
+  /**
+   * Constraint on the options present, compiled to a bitset over the ordinals.
+   */
+  private static final class Constraint {
+
+    // kinds
+    private static final int REQUIRES = 0;
+    private static final int EXCLUDES = 1;
+    private static final int GROUP = 2;
+
+    // fields
+    private final int kind;
+    private final int trigger;
+    private final long[] mask;
+    private final int min;
+    private final int max;
+
+    // creates the constraint
+    private Constraint(final int kind, final int trigger, final long[] mask, final int min, final int max) {
+      this.kind = kind;
+      this.trigger = trigger;
+      this.mask = mask;
+      this.min = min;
+      this.max = max;
+    }
+  }
+
+  /**
+   * Gets the number of options.
+   *
+   * @return the number of options
+   */
+  public int getNumOptions() {
+    return options.size();
+  }
+
+  /**
+   * Gets the option using its ordinal, i.e. the order in which it was added.
+   *
+   * @param ordinal the ordinal
+   * @return the option
+   */
+  public Option getOption(final int ordinal) {
+    return options.get(ordinal);
+  }
+
+  /**
+   * Gets the ordinal of an option, i.e. the order in which it was added.
+   *
+   * @param option the option
+   * @return the ordinal or <code>-1</code> if not found
+   */
+  public int getOrdinal(final Option option) {
+    final Integer ordinal = ordinals.get(option);
+    return (ordinal == null) ? -1 : ordinal;
+  }
+
   /**
    * Gets the option using the short option string.
    *
@@ -74,6 +138,219 @@ public final class Options {
     return longMap.get(longOpt);
   }
 
+  /** The offset basis of the fingerprint (FNV-1a). */
+  static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+  // the prime of the fingerprint (FNV-1a)
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  /**
+   * Adds an integer to a fingerprint.
+   *
+   * @param hash the fingerprint
+   * @param value the integer
+   * @return the new fingerprint
+   */
+  static long hash(final long hash, final int value) {
+    long res = hash;
+    for (int i = 0; i < Integer.SIZE; i += Byte.SIZE) {
+      res = (res ^ ((value >>> i) & 0xff)) * FNV_PRIME;
+    }
+    return res;
+  }
+
+  /**
+   * Adds a long integer to a fingerprint.
+   *
+   * @param hash the fingerprint
+   * @param value the long integer
+   * @return the new fingerprint
+   */
+  static long hash(final long hash, final long value) {
+    return hash(hash(hash, (int) value), (int) (value >>> Integer.SIZE));
+  }
+
+  /**
+   * Adds a string to a fingerprint.
+   *
+   * @param hash the fingerprint
+   * @param str the string, may be <code>null</code>
+   * @return the new fingerprint
+   */
+  static long hash(final long hash, final String str) {
+    if (str == null) {
+      return hash(hash, -1);
+    }
+    long res = hash(hash, str.length());
+    for (int i = 0; i < str.length(); i++) {
+      res = hash(res, (int) str.charAt(i));
+    }
+    return res;
+  }
+
+  /**
+   * Gets the fingerprint of the options, a hash of their structure: the option strings, the numbers of
+   * parameters, the keywords, the specifications of the parameter types (see {@link ParameterType#getSpec()})
+   * and the constraints. It serves to check that data derived from parsing, e.g. an encoded command line,
+   * matches the options, even in a different process. The built-in types are covered with their parameters,
+   * e.g. the limits of a range or the allowed values; custom types only as far as their specifications go.
+   * The fingerprints of the options are computed once and recomputed only after a sub-option is added.
+   *
+   * @return the fingerprint
+   */
+  public long getFingerprint() {
+    long res = hash(FNV_OFFSET, options.size());
+    for (Option option : options) {
+      res = hash(res, option.getFingerprint());
+    }
+    res = hash(res, constraints.size());
+    for (Constraint constraint : constraints) {
+      res = hash(hash(hash(hash(res, constraint.kind), constraint.trigger), constraint.min), constraint.max);
+      for (long word : constraint.mask) {
+        res = hash(res, word);
+      }
+    }
+    return res;
+  }
+
+  /**
+   * Gets an option by its option string, i.e. <code>-</code> followed by the short option string or
+   * <code>--</code> followed by the long option string.
+   *
+   * @param opt the option string
+   * @return the option
+   * @throws ParseException if the option is not found
+   */
+  Option lookup(final String opt) throws ParseException {
+    final Option option = opt.startsWith("--") ? getOptionLong(opt.substring(2))
+        : (opt.startsWith("-") ? getOptionShort(opt.substring(1)) : null);
+    if (option == null) {
+      throw new ParseException("Invalid option: " + opt);
+    }
+    return option;
+  }
+
+  // gets the ordinal of an option, which must be present
+  private int ordinal(final Option option) throws ParseException {
+    final int ordinal = getOrdinal(option);
+    if (ordinal < 0) {
+      throw new ParseException("Option not found: " + option.getName());
+    }
+    return ordinal;
+  }
+
+  // compiles options into a bitset
+  private long[] mask(final Option ... opts) throws ParseException {
+    final long[] res = new long[(options.size() + Long.SIZE - 1) / Long.SIZE];
+    for (Option option : opts) {
+      final int ordinal = ordinal(option);
+      res[ordinal / Long.SIZE] |= 1L << ordinal;
+    }
+    return res;
+  }
+
+  /**
+   * Adds a constraint: if an option is present, other options must be present as well.
+   *
+   * @param option the option
+   * @param required the options required by it
+   * @return the options object, to facilitate chaining
+   * @throws ParseException if an option is not found
+   */
+  public Options addRequires(final Option option, final Option ... required) throws ParseException {
+    constraints.add(new Constraint(Constraint.REQUIRES, ordinal(option), mask(required), 0, 0));
+    return this;
+  }
+
+  /**
+   * Adds a constraint: if an option is present, other options must not be present.
+   *
+   * @param option the option
+   * @param excluded the options excluded by it
+   * @return the options object, to facilitate chaining
+   * @throws ParseException if an option is not found
+   */
+  public Options addExcludes(final Option option, final Option ... excluded) throws ParseException {
+    constraints.add(new Constraint(Constraint.EXCLUDES, ordinal(option), mask(excluded), 0, 0));
+    return this;
+  }
+
+  /**
+   * Adds a constraint: of a group of options, the number of those present must be within limits, e.g.
+   * <code>1</code> and <code>1</code> for exactly one of the group.
+   *
+   * @param min the minimum number of options present
+   * @param max the maximum number of options present
+   * @param group the options of the group
+   * @return the options object, to facilitate chaining
+   * @throws ParseException if an option is not found
+   */
+  public Options addGroup(final int min, final int max, final Option ... group) throws ParseException {
+    if ((min < 0) || (max < min)) {
+      throw new ParseException("Invalid group limits");
+    }
+    constraints.add(new Constraint(Constraint.GROUP, -1, mask(group), min, max));
+    return this;
+  }
+
+  /**
+   * Checks if any constraints are declared.
+   *
+   * @return <code>true</code> if there are constraints
+   */
+  boolean hasConstraints() {
+    return !constraints.isEmpty();
+  }
+
+  // checks if a bit is set
+  private static boolean isSet(final long[] bits, final int idx) {
+    return ((idx / Long.SIZE) < bits.length) && ((bits[idx / Long.SIZE] & (1L << idx)) != 0);
+  }
+
+  // lists the names of the options in a bitset
+  private String names(final long[] bits) {
+    final StringBuilder res = new StringBuilder();
+    for (int i = 0; i < options.size(); i++) {
+      if (isSet(bits, i)) {
+        res.append((res.length() == 0) ? "" : ", ").append('"').append(options.get(i).getName()).append('"');
+      }
+    }
+    return res.toString();
+  }
+
+  /**
+   * Checks the constraints.
+   *
+   * @param present the bitset of the ordinals of the options present
+   * @throws ParseException if a constraint is violated
+   */
+  void checkConstraints(final long[] present) throws ParseException {
+    for (Constraint constraint : constraints) {
+      final long[] mask = constraint.mask;
+      if (constraint.kind == Constraint.GROUP) {
+        int count = 0;
+        for (int i = 0; i < mask.length; i++) {
+          count += Long.bitCount(mask[i] & present[i]);
+        }
+        if ((count < constraint.min) || (count > constraint.max)) {
+          throw new ParseException(String.format("Between %d and %d of the options %s must be given",
+              constraint.min, constraint.max, names(mask)));
+        }
+      } else if (isSet(present, constraint.trigger)) {
+        final boolean requires = (constraint.kind == Constraint.REQUIRES);
+        for (int i = 0; i < mask.length; i++) {
+          final long violated = requires ? (mask[i] & ~present[i]) : (mask[i] & present[i]);
+          if (violated != 0) {
+            final long[] bits = new long[mask.length];
+            bits[i] = Long.lowestOneBit(violated);
+            throw new ParseException(String.format("Option \"%s\" %s option %s",
+                options.get(constraint.trigger).getName(), requires ? "requires" : "excludes", names(bits)));
+          }
+        }
+      }
+    }
+  }
+
   /**
    * Adds an option.
    *
@@ -87,6 +364,7 @@ public final class Options {
     if (((shortOpt != null) && shortMap.containsKey(shortOpt)) || ((longOpt != null) && longMap.containsKey(longOpt))) {
       throw new ParseException("Duplicate option");
     }
+    ordinals.put(option, options.size());
     options.add(option);
     if (shortOpt != null) {
       shortMap.put(shortOpt, option);
@@ -236,6 +514,58 @@ public final class Options {
       return this;
     }
 
+    /**
+     * Adds a constraint: if an option is present, other options must be present as well. The options are given
+     * by their option strings, e.g. <code>-a</code> or <code>--alpha</code>.
+     *
+     * @param opt the option
+     * @param required the options required by it
+     * @return the builder object, to facilitate chaining
+     * @throws ParseException if an option is not found
+     */
+    public Builder addRequires(final String opt, final String ... required) throws ParseException {
+      options.addRequires(options.lookup(opt), lookupAll(required));
+      return this;
+    }
+
+    /**
+     * Adds a constraint: if an option is present, other options must not be present. The options are given
+     * by their option strings, e.g. <code>-a</code> or <code>--alpha</code>.
+     *
+     * @param opt the option
+     * @param excluded the options excluded by it
+     * @return the builder object, to facilitate chaining
+     * @throws ParseException if an option is not found
+     */
+    public Builder addExcludes(final String opt, final String ... excluded) throws ParseException {
+      options.addExcludes(options.lookup(opt), lookupAll(excluded));
+      return this;
+    }
+
+    /**
+     * Adds a constraint: of a group of options, the number of those present must be within limits. The options
+     * are given by their option strings, e.g. <code>-a</code> or <code>--alpha</code>.
+     *
+     * @param min the minimum number of options present
+     * @param max the maximum number of options present
+     * @param group the options of the group
+     * @return the builder object, to facilitate chaining
+     * @throws ParseException if an option is not found or the limits are invalid
+     */
+    public Builder addGroup(final int min, final int max, final String ... group) throws ParseException {
+      options.addGroup(min, max, lookupAll(group));
+      return this;
+    }
+
+    // looks up options by their option strings
+    private Option[] lookupAll(final String ... opts) throws ParseException {
+      final Option[] res = new Option[opts.length];
+      for (int i = 0; i < opts.length; i++) {
+        res[i] = options.lookup(opts[i]);
+      }
+      return res;
+    }
+
     /**
      * Builds the options.
      *
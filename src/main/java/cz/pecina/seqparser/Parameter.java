@@ -23,6 +23,7 @@
 package cz.pecina.seqparser;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,10 +50,10 @@ public final class Parameter {
   private final Option option;
 
   /** List of sub-parameters. */
-  private final List<SubParameter> subParameters = new ArrayList<>();
+  private List<SubParameter> subParameters = new ArrayList<>();
 
   /** Map of keyword sub-parameters. */
-  private final Map<String, SubParameter> kwSubParameters = new HashMap<>();
+  private Map<String, SubParameter> kwSubParameters = new HashMap<>();
 
   /**
    * Gets the option describing the parameter.
@@ -148,6 +149,14 @@ public final class Parameter {
     kwSubParameters.put(key, subParameter);
   }
 
+  /**
+   * Makes the parameter unmodifiable, so that it can be shared.
+   */
+  void freeze() {
+    subParameters = Collections.unmodifiableList(subParameters);
+    kwSubParameters = Collections.unmodifiableMap(kwSubParameters);
+  }
+
   /**
    * Creates the parameter object.
    *
@@ -156,4 +165,18 @@ public final class Parameter {
   Parameter(final Option option) {
     this.option = option;
   }
+
+  /**
+   * Creates a parameter object backed by views of the sub-parameters. The parameter cannot be modified.
+   *
+   * @param option the option describing the parameter
+   * @param subParameters the view of the list of sub-parameters
+   * @param kwSubParameters the view of the map of keyword sub-parameters
+   */
+  Parameter(final Option option, final List<SubParameter> subParameters,
+      final Map<String, SubParameter> kwSubParameters) {
+    this.option = option;
+    this.subParameters = subParameters;
+    this.kwSubParameters = kwSubParameters;
+  }
 }
@@ -49,63 +49,101 @@ public interface ParameterType {
   }
 
   /**
-   * Predefined string type.
+   * Gets the specification of the type, identifying the type and its parameters, e.g. the limits of a range.
+   * It is covered by the fingerprint of the options (see {@link Options#getFingerprint()}), so types with equal
+   * specifications must accept the same strings and convert them to equal values. The default implementation
+   * returns the name of the class; custom types configured by parameters should override it.
+   *
+   * @return the specification
    */
-  @SuppressWarnings("checkstyle:ConstantName")
-  SubOption String = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        return str != null;
+  default java.lang.String getSpec() {
+    return getClass().getName();
+  }
+
+  /**
+   * Creates a type memoizing the results of another type, for types whose checks or conversions are expensive,
+   * e.g. look-ups or file-system checks. Results are memoized for a bounded number of distinct values; the
+   * converted values are shared, so they should be immutable. The decorated type must give the same result
+   * for equal strings.
+   *
+   * @param type the decorated type
+   * @param size the minimum number of memoized values, rounded up to a power of two
+   * @return the memoizing type
+   */
+  static ParameterType cached(final ParameterType type, final int size) {
+    return new CachedParameterType(type, size);
+  }
+
+  /**
+   * Composes types, all of which must accept the string. For types of primitive values, composing predicates
+   * with e.g. {@link IntParameterType#and(java.util.function.IntPredicate)} converts the string only once.
+   *
+   * @param types the types
+   * @return the composed type
+   */
+  static ParameterType allOf(final ParameterType ... types) {
+    final ParameterType[] all = types.clone();
+    return str -> {
+      for (ParameterType type : all) {
+        if (!BuiltinType.check(type, str)) {
+          return false;
+        }
       }
-    });
+      return true;
+    };
+  }
 
   /**
-   * Predefined integer type.
+   * Composes types, any of which must accept the string.
+   *
+   * @param types the types
+   * @return the composed type
    */
-  @SuppressWarnings("checkstyle:ConstantName")
-  SubOption Integer = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        try {
-          java.lang.Integer.valueOf(str);
+  static ParameterType anyOf(final ParameterType ... types) {
+    final ParameterType[] all = types.clone();
+    return str -> {
+      for (ParameterType type : all) {
+        if (BuiltinType.check(type, str)) {
           return true;
-        } catch (final Exception exception) {
-          return false;
         }
       }
-    });
+      return false;
+    };
+  }
+
+  /**
+   * Negates a type, accepting the strings it rejects, except <code>null</code>.
+   *
+   * @param type the type
+   * @return the negated type
+   */
+  static ParameterType not(final ParameterType type) {
+    return str -> (str != null) && !BuiltinType.check(type, str);
+  }
+
+  /**
+   * Predefined string type.
+   */
+  @SuppressWarnings("checkstyle:ConstantName")
+  SubOption String = new SubOption(new StringType());
+
+  /**
+   * Predefined integer type.
+   */
+  @SuppressWarnings("checkstyle:ConstantName")
+  SubOption Integer = new SubOption(new IntType(java.lang.Integer.MIN_VALUE, java.lang.Integer.MAX_VALUE));
 
   /**
    * Predefined positive integer type.
    */
   @SuppressWarnings("checkstyle:ConstantName")
-  SubOption PosInteger = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        try {
-          final int res = java.lang.Integer.valueOf(str);
-          return res > 0;
-        } catch (final Exception exception) {
-          return false;
-        }
-      }
-    });
+  SubOption PosInteger = new SubOption(new IntType(1, java.lang.Integer.MAX_VALUE));
 
   /**
    * Predefined non-negative integer type.
    */
   @SuppressWarnings("checkstyle:ConstantName")
-  SubOption NonNegInteger = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        try {
-          final int res = java.lang.Integer.valueOf(str);
-          return res >= 0;
-        } catch (final Exception exception) {
-          return false;
-        }
-      }
-    });
+  SubOption NonNegInteger = new SubOption(new IntType(0, java.lang.Integer.MAX_VALUE));
 
   /**
    * Predefined integer range type.
@@ -116,66 +154,88 @@ public interface ParameterType {
    */
   @SuppressWarnings("checkstyle:MethodName")
   static SubOption IntegerRange(final int min, final int max) {
-    return new SubOption(new ParameterType() {
-        @Override
-        public boolean check(final java.lang.String str) {
-          try {
-            final int res = java.lang.Integer.valueOf(str);
-            return (res >= min) && (res <= max);
-          } catch (final Exception exception) {
-            return false;
-          }
-        }
-      });
+    return new SubOption(new IntType(min, max));
+  }
+
+  /**
+   * Predefined long integer type.
+   */
+  @SuppressWarnings("checkstyle:ConstantName")
+  SubOption Long = new SubOption(new LongType(LongType.PLAIN, java.lang.Long.MIN_VALUE, java.lang.Long.MAX_VALUE));
+
+  /**
+   * Predefined long integer range type.
+   *
+   * @param min lower limit
+   * @param max upper limit
+   * @return the new class
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  static SubOption LongRange(final long min, final long max) {
+    return new SubOption(new LongType(LongType.PLAIN, min, max));
+  }
+
+  /**
+   * Predefined byte size type, e.g. <code>64M</code> or <code>2GiB</code>, see {@link LongType};
+   * {@link SubParameter#get()} returns the number of bytes as {@link java.lang.Long}.
+   */
+  @SuppressWarnings("checkstyle:ConstantName")
+  SubOption ByteSize = new SubOption(new LongType(LongType.BYTE_SIZE, 0, java.lang.Long.MAX_VALUE));
+
+  /**
+   * Predefined byte size range type.
+   *
+   * @param min lower limit in bytes
+   * @param max upper limit in bytes
+   * @return the new class
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  static SubOption ByteSizeRange(final long min, final long max) {
+    return new SubOption(new LongType(LongType.BYTE_SIZE, min, max));
+  }
+
+  /**
+   * Predefined duration type, e.g. <code>500ms</code> or <code>5m</code>, see {@link LongType};
+   * {@link SubParameter#get()} returns {@link java.time.Duration}.
+   */
+  @SuppressWarnings("checkstyle:ConstantName")
+  SubOption Duration = new SubOption(new LongType(LongType.DURATION, 0, java.lang.Long.MAX_VALUE));
+
+  /**
+   * Predefined duration range type. The limits must be representable in nanoseconds as a long integer,
+   * i.e. up to about 292 years.
+   *
+   * @param min lower limit
+   * @param max upper limit
+   * @return the new class
+   * @throws ParseException if a limit is out of range
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  static SubOption DurationRange(final java.time.Duration min, final java.time.Duration max) throws ParseException {
+    try {
+      return new SubOption(new LongType(LongType.DURATION, min.toNanos(), max.toNanos()));
+    } catch (final ArithmeticException exception) {
+      throw new ParseException("Duration limit out of range");
+    }
   }
 
   /**
    * Predefined float type.
    */
   @SuppressWarnings("checkstyle:ConstantName")
-  SubOption Float = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        try {
-          java.lang.Float.valueOf(str);
-          return true;
-        } catch (final Exception exception) {
-          return false;
-        }
-      }
-    });
+  SubOption Float = new SubOption(new DoubleType(true));
 
   /**
    * Predefined positive float type.
    */
   @SuppressWarnings("checkstyle:ConstantName")
-  SubOption PosFloat = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        try {
-          final float res = java.lang.Float.valueOf(str);
-          return res > 0f;
-        } catch (final Exception exception) {
-          return false;
-        }
-      }
-    });
+  SubOption PosFloat = new SubOption(new DoubleType(true, 0, true, java.lang.Double.POSITIVE_INFINITY));
 
   /**
    * Predefined non-negative float type.
    */
   @SuppressWarnings("checkstyle:ConstantName")
-  SubOption NonNegFloat = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        try {
-          final float res = java.lang.Float.valueOf(str);
-          return res >= 0f;
-        } catch (final Exception exception) {
-          return false;
-        }
-      }
-    });
+  SubOption NonNegFloat = new SubOption(new DoubleType(true, 0, false, java.lang.Double.POSITIVE_INFINITY));
 
 
   /**
@@ -187,66 +247,26 @@ public interface ParameterType {
    */
   @SuppressWarnings("checkstyle:MethodName")
   static SubOption FloatRange(final float min, final float max) {
-    return new SubOption(new ParameterType() {
-        @Override
-        public boolean check(final java.lang.String str) {
-          try {
-            final float res = java.lang.Float.valueOf(str);
-            return (res >= min) && (res <= max);
-          } catch (final Exception exception) {
-            return false;
-          }
-        }
-      });
+    return new SubOption(new DoubleType(true, min, false, max));
   }
 
   /**
    * Predefined double type.
    */
   @SuppressWarnings("checkstyle:ConstantName")
-  SubOption Double = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        try {
-          java.lang.Double.valueOf(str);
-          return true;
-        } catch (final Exception exception) {
-          return false;
-        }
-      }
-    });
+  SubOption Double = new SubOption(new DoubleType(false));
 
   /**
    * Predefined positive double type.
    */
   @SuppressWarnings("checkstyle:ConstantName")
-  SubOption PosDouble = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        try {
-          final double res = java.lang.Double.valueOf(str);
-          return res > 0.0;
-        } catch (final Exception exception) {
-          return false;
-        }
-      }
-    });
+  SubOption PosDouble = new SubOption(new DoubleType(false, 0, true, java.lang.Double.POSITIVE_INFINITY));
 
   /**
    * Predefined non-negative double type.
    */
   @SuppressWarnings("checkstyle:ConstantName")
-  SubOption NonNegDouble = new SubOption(new ParameterType() {
-      @Override
-      public boolean check(final java.lang.String str) {
-        try {
-          final double res = java.lang.Double.valueOf(str);
-          return res >= 0.0;
-        } catch (final Exception exception) {
-          return false;
-        }
-      }
-    });
+  SubOption NonNegDouble = new SubOption(new DoubleType(false, 0, false, java.lang.Double.POSITIVE_INFINITY));
 
 
   /**
@@ -258,16 +278,63 @@ public interface ParameterType {
    */
   @SuppressWarnings("checkstyle:MethodName")
   static SubOption DoubleRange(final double min, final double max) {
-    return new SubOption(new ParameterType() {
-        @Override
-        public boolean check(final java.lang.String str) {
-          try {
-            final double res = java.lang.Double.valueOf(str);
-            return (res >= min) && (res <= max);
-          } catch (final Exception exception) {
-            return false;
-          }
-        }
-      });
+    return new SubOption(new DoubleType(false, min, false, max));
+  }
+
+  /**
+   * Predefined regular-expression type, accepting the strings matching the whole expression, see
+   * {@link RegexType}.
+   *
+   * @param regex the regular expression
+   * @return the new class
+   * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  static SubOption Regex(final java.lang.String regex) {
+    return Regex(regex, 0);
+  }
+
+  /**
+   * Predefined regular-expression type with flags, accepting the strings matching the whole expression, see
+   * {@link RegexType}.
+   *
+   * @param regex the regular expression
+   * @param flags the flags, see {@link java.util.regex.Pattern#compile(java.lang.String, int)}
+   * @return the new class
+   * @throws java.util.regex.PatternSyntaxException if the expression is invalid
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  static SubOption Regex(final java.lang.String regex, final int flags) {
+    return new SubOption(new RegexType(regex, flags));
+  }
+
+  /**
+   * Predefined choice type, accepting only the listed values. The values are matched exactly, see
+   * {@link ChoiceType}; {@link SubParameter#get()} returns the listed string.
+   *
+   * @param values the allowed values
+   * @return the new class
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  static SubOption Choice(final java.lang.String ... values) {
+    return new SubOption(new ChoiceType(values.clone(), values.clone()));
+  }
+
+  /**
+   * Predefined enumeration type, accepting the names of the constants of an enumeration. The names are matched
+   * exactly, see {@link ChoiceType}; {@link SubParameter#get()} returns the constant.
+   *
+   * @param <E> the enumeration
+   * @param cls the class of the enumeration
+   * @return the new class
+   */
+  @SuppressWarnings("checkstyle:MethodName")
+  static <E extends Enum<E>> SubOption Enum(final Class<E> cls) {
+    final E[] constants = cls.getEnumConstants();
+    final java.lang.String[] names = new java.lang.String[constants.length];
+    for (int i = 0; i < constants.length; i++) {
+      names[i] = constants[i].name();
+    }
+    return new SubOption(new ChoiceType(names, constants));
   }
 }
@@ -0,0 +1,209 @@
+/* ParseCache.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Cache of parse results, in front of {@link SeqParser#parse(Options, String[], boolean)}. The results are keyed
+ * by the identity and the fingerprint of the options (see {@link Options#getFingerprint()}), the separator and
+ * the limits of the parser (see {@link SeqParser#setLimits(ParseLimits)}), the stop-on-non-option flag and the
+ * content of the arguments; the least recently used result is evicted when the cache is full. Results parsed
+ * before the options were modified, or by a parser with different limits, are thus never returned.
+ *
+ * <p>The command lines returned are shared between callers and are unmodifiable. Parsing errors are not cached.
+ * The cache may be used concurrently.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class ParseCache {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(ParseCache.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return "ParseCache";
+  }
+
+  // constants
+  private static final int INITIAL_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.75f;
+
+  /**
+   * Key of a cached result.
+   */
+  private static final class Key {
+
+    // fields
+    private final Options options;
+    private final long fingerprint;
+    private final char sep;
+    private final int[] limits;
+    private final boolean stopOnNonOption;
+    private final String[] args;
+    private final int hash;
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final Key key = (Key) obj;
+      return (hash == key.hash) && (options == key.options) && (fingerprint == key.fingerprint) && (sep == key.sep)
+        && Arrays.equals(limits, key.limits) && (stopOnNonOption == key.stopOnNonOption)
+        && Arrays.equals(args, key.args);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    // creates the key
+    private Key(final Options options, final char sep, final int[] limits, final boolean stopOnNonOption,
+        final String[] args) {
+      this.options = options;
+      fingerprint = options.getFingerprint();
+      this.sep = sep;
+      this.limits = limits;
+      this.stopOnNonOption = stopOnNonOption;
+      this.args = args;
+      hash = (((((((System.identityHashCode(options) * 31) + Long.hashCode(fingerprint)) * 31) + sep) * 31
+        + Arrays.hashCode(limits)) * 31) + (stopOnNonOption ? 1 : 0)) * 31 + Arrays.hashCode(args);
+    }
+  }
+
+  /** The parser. */
+  private final SeqParser parser;
+
+  /** The maximum number of cached results. */
+  private final int maxSize;
+
+  /** The cached results, in access order. */
+  private final Map<Key, CommandLine> map;
+
+  /** Number of hits. */
+  private long hits;
+
+  /** Number of misses. */
+  private long misses;
+
+  /**
+   * Parses the arguments, or returns the cached result of parsing identical arguments.
+   *
+   * @param options the options
+   * @param args the arguments
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @return the unmodifiable command line object
+   * @throws ParseException on parsing error
+   */
+  public CommandLine parse(final Options options, final String[] args, final boolean stopOnNonOption)
+      throws ParseException {
+    final Key key = new Key(options, parser.getSep(), ParseLimits.getValues(parser.getLimits()), stopOnNonOption,
+        args.clone());
+    synchronized (this) {
+      final CommandLine cmd = map.get(key);
+      if (cmd != null) {
+        hits++;
+        return cmd;
+      }
+      misses++;
+    }
+    final CommandLine cmd = parser.parse(options, key.args, stopOnNonOption).freeze();
+    synchronized (this) {
+      final CommandLine cached = map.putIfAbsent(key, cmd);
+      return (cached == null) ? cmd : cached;
+    }
+  }
+
+  /**
+   * Gets the maximum number of cached results.
+   *
+   * @return the maximum number of cached results
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Gets the number of cached results.
+   *
+   * @return the number of cached results
+   */
+  public synchronized int getSize() {
+    return map.size();
+  }
+
+  /**
+   * Gets the number of calls answered from the cache.
+   *
+   * @return the number of hits
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets the number of calls that had to parse.
+   *
+   * @return the number of misses
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Removes all cached results and resets the counters.
+   */
+  public synchronized void clear() {
+    map.clear();
+    hits = 0;
+    misses = 0;
+  }
+
+  /**
+   * Creates the cache.
+   *
+   * @param parser the parser, which determines the separator and the limits
+   * @param maxSize the maximum number of cached results
+   */
+  public ParseCache(final SeqParser parser, final int maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Invalid cache size");
+    }
+    this.parser = parser;
+    this.maxSize = maxSize;
+    map = new LinkedHashMap<Key, CommandLine>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Key, CommandLine> eldest) {
+        return size() > ParseCache.this.maxSize;
+      }
+    };
+  }
+}
@@ -0,0 +1,127 @@
+/* ParseClient.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.logging.Logger;
+
+/**
+ * Client of {@link ParseServer}. The argument vectors are sent to the server and the parsed command lines are
+ * received back, without being checked again. The options passed to the client must be built the same way as
+ * those of the server, but they are only used to look up options by their ordinals.
+ *
+ * <p>The client is not a thin one: it runs in a JVM and needs the full options, whose fingerprint must match
+ * those of the server. It thus saves checking the values, not starting the JVM or building the options.
+ * Thin clients, e.g. shell scripts, use the text protocol of the server instead (see {@link ParseServer}).
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class ParseClient implements AutoCloseable {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(ParseClient.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return "ParseClient";
+  }
+
+  /** The options. */
+  private final Options options;
+
+  /** The socket. */
+  private final Socket socket;
+
+  /** The input stream. */
+  private final DataInputStream in;
+
+  /** The output stream. */
+  private final DataOutputStream out;
+
+  /**
+   * Parses a string of arguments on the server.
+   *
+   * @param args the string of arguments
+   * @return the command line object
+   * @throws IOException on I/O error
+   * @throws ParseException on parsing error
+   */
+  public synchronized CommandLine parse(final String[] args) throws IOException, ParseException {
+    WireFormat.writeArgs(out, args);
+    out.flush();
+    final byte status = in.readByte();
+    if (status == WireFormat.STATUS_ERROR) {
+      throw new ParseException(WireFormat.readString(in, WireFormat.DEFAULT_MAX_MESSAGE_SIZE));
+    } else if (status != WireFormat.STATUS_OK) {
+      throw new IOException("Corrupt message");
+    }
+    return WireFormat.readCommandLine(in, options, WireFormat.DEFAULT_MAX_MESSAGE_SIZE);
+  }
+
+  /**
+   * Closes the connection.
+   *
+   * @throws IOException on I/O error
+   */
+  @Override
+  public void close() throws IOException {
+    socket.close();
+  }
+
+  /**
+   * Creates the client, connecting to a server on the loopback interface.
+   *
+   * @param options the options, identical to those of the server
+   * @param port the port of the server
+   * @param token the token of the server, see {@link ParseServer#getToken()}
+   * @throws IOException if the connection or the authentication fails
+   */
+  public ParseClient(final Options options, final int port, final String token) throws IOException {
+    this.options = options;
+    socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    try {
+      socket.setTcpNoDelay(true);
+      in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      WireFormat.writeString(out, token);
+      out.flush();
+      final byte status = in.readByte();
+      if (status == WireFormat.STATUS_ERROR) {
+        throw new IOException(WireFormat.readString(in, WireFormat.DEFAULT_MAX_MESSAGE_SIZE));
+      } else if (status != WireFormat.STATUS_OK) {
+        throw new IOException("Corrupt message");
+      }
+    } catch (final IOException | RuntimeException exception) {
+      socket.close();
+      throw exception;
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/* ParseError.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.logging.Logger;
+
+/**
+ * Parsing error, as collected by {@link SeqParser#collectErrors(Options, String[], boolean, int)}. The error
+ * carries the message of the exception that parsing would have thrown, and the position of the error.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class ParseError {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(ParseError.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return String.format("ParseError \"%s\" at argument %d, offset %d", message, argIndex, offset);
+  }
+
+  /** The message. */
+  private final String message;
+
+  /** The index of the argument. */
+  private final int argIndex;
+
+  /** The offset within the argument. */
+  private final int offset;
+
+  /**
+   * Gets the message.
+   *
+   * @return the message
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * Gets the index of the argument the error was found in. Errors concerning an option, such as an invalid
+   * number of positional parameters, are reported at the option.
+   *
+   * @return the index, or <code>-1</code> if the error does not concern any argument, as a violated constraint
+   */
+  public int getArgIndex() {
+    return argIndex;
+  }
+
+  /**
+   * Gets the offset within the argument, which is the start of the offending sub-parameter, or <code>0</code>
+   * if the error concerns the whole argument.
+   *
+   * @return the offset
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Creates the parsing error.
+   *
+   * @param message the message
+   * @param argIndex the index of the argument, or <code>-1</code> if none
+   * @param offset the offset within the argument
+   */
+  ParseError(final String message, final int argIndex, final int offset) {
+    this.message = message;
+    this.argIndex = argIndex;
+    this.offset = offset;
+  }
+}
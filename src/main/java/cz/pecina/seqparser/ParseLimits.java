@@ -0,0 +1,200 @@
+/* ParseLimits.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.logging.Logger;
+
+/**
+ * Limits on the size of the input accepted by the parser, for parsing untrusted argument vectors. The limits are
+ * enforced as the arguments are processed, so an excessive input is rejected before it has been consumed in full.
+ * The limits are set by {@link SeqParser#setLimits(ParseLimits)}; all of them are unlimited by default.
+ *
+ * <p>The limits are read when parsing starts, later changes do not affect parsing in progress.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class ParseLimits {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(ParseLimits.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return "ParseLimits";
+  }
+
+  /** Value denoting no limit. */
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
+  /** Maximum number of arguments, including the remaining arguments. */
+  private int maxArgs = UNLIMITED;
+
+  /** Maximum length of an argument. */
+  private int maxArgLength = UNLIMITED;
+
+  /** Maximum number of sub-parameters, positional and keyword, of one option. */
+  private int maxSubParameters = UNLIMITED;
+
+  /** Maximum number of sub-parameters, positional and keyword, of all options. */
+  private int maxTotalSubParameters = UNLIMITED;
+
+  /** Maximum number of keyword sub-parameters of one option. */
+  private int maxKwSubParameters = UNLIMITED;
+
+  // checks a limit
+  private static int checkLimit(final int limit) throws ParseException {
+    if (limit < 0) {
+      throw new ParseException("Invalid limit");
+    }
+    return limit;
+  }
+
+  /**
+   * Gets the maximum number of arguments, including the remaining arguments.
+   *
+   * @return the limit
+   */
+  public int getMaxArgs() {
+    return maxArgs;
+  }
+
+  /**
+   * Sets the maximum number of arguments, including the remaining arguments.
+   *
+   * @param maxArgs the limit, or {@link #UNLIMITED}
+   * @return the limits object, to facilitate chaining
+   * @throws ParseException on invalid limit
+   */
+  public ParseLimits setMaxArgs(final int maxArgs) throws ParseException {
+    this.maxArgs = checkLimit(maxArgs);
+    return this;
+  }
+
+  /**
+   * Gets the maximum length of an argument.
+   *
+   * @return the limit
+   */
+  public int getMaxArgLength() {
+    return maxArgLength;
+  }
+
+  /**
+   * Sets the maximum length of an argument.
+   *
+   * @param maxArgLength the limit, or {@link #UNLIMITED}
+   * @return the limits object, to facilitate chaining
+   * @throws ParseException on invalid limit
+   */
+  public ParseLimits setMaxArgLength(final int maxArgLength) throws ParseException {
+    this.maxArgLength = checkLimit(maxArgLength);
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of sub-parameters, positional and keyword, of one option.
+   *
+   * @return the limit
+   */
+  public int getMaxSubParameters() {
+    return maxSubParameters;
+  }
+
+  /**
+   * Sets the maximum number of sub-parameters, positional and keyword, of one option. Repeated options
+   * are counted separately.
+   *
+   * @param maxSubParameters the limit, or {@link #UNLIMITED}
+   * @return the limits object, to facilitate chaining
+   * @throws ParseException on invalid limit
+   */
+  public ParseLimits setMaxSubParameters(final int maxSubParameters) throws ParseException {
+    this.maxSubParameters = checkLimit(maxSubParameters);
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of sub-parameters, positional and keyword, of all options.
+   *
+   * @return the limit
+   */
+  public int getMaxTotalSubParameters() {
+    return maxTotalSubParameters;
+  }
+
+  /**
+   * Sets the maximum number of sub-parameters, positional and keyword, of all options.
+   *
+   * @param maxTotalSubParameters the limit, or {@link #UNLIMITED}
+   * @return the limits object, to facilitate chaining
+   * @throws ParseException on invalid limit
+   */
+  public ParseLimits setMaxTotalSubParameters(final int maxTotalSubParameters) throws ParseException {
+    this.maxTotalSubParameters = checkLimit(maxTotalSubParameters);
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of keyword sub-parameters of one option.
+   *
+   * @return the limit
+   */
+  public int getMaxKwSubParameters() {
+    return maxKwSubParameters;
+  }
+
+  /**
+   * Sets the maximum number of keyword sub-parameters of one option. Repeated keywords are counted each time.
+   *
+   * @param maxKwSubParameters the limit, or {@link #UNLIMITED}
+   * @return the limits object, to facilitate chaining
+   * @throws ParseException on invalid limit
+   */
+  public ParseLimits setMaxKwSubParameters(final int maxKwSubParameters) throws ParseException {
+    this.maxKwSubParameters = checkLimit(maxKwSubParameters);
+    return this;
+  }
+
+  /**
+   * Gets the values of the limits, for keying parse results.
+   *
+   * @param limits the limits, or <code>null</code> if the input is not limited
+   * @return the values of all limits, in a fixed order
+   */
+  static int[] getValues(final ParseLimits limits) {
+    if (limits == null) {
+      return new int[] {UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED, UNLIMITED};
+    }
+    return new int[] {limits.maxArgs, limits.maxArgLength, limits.maxSubParameters, limits.maxTotalSubParameters,
+        limits.maxKwSubParameters};
+  }
+
+  /**
+   * Creates the limits object, with all limits unlimited.
+   */
+  public ParseLimits() {
+    // no action
+  }
+}
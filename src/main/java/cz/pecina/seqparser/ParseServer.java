@@ -0,0 +1,420 @@
+/* ParseServer.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Parse daemon, keeping options ready and parsing argument vectors sent by its clients. Short-lived processes can
+ * thus delegate parsing instead of building the options on each start.
+ *
+ * <p>The server speaks two protocols, told apart by the first byte of a connection: the binary one of
+ * {@link ParseClient}, which returns command line objects to a JVM, and a line-based text one, which returns
+ * the parsed items as lines of text and needs neither a JVM nor the options on the client side. A thin client
+ * of the text protocol may be a shell script, such as <code>src/main/scripts/seqparser-client.sh</code>:
+ * <pre>
+ * exec 3&lt;&gt;/dev/tcp/127.0.0.1/$PORT
+ * printf '%s\n%s\n' \"$TOKEN\" '-v --level 3 -- x' &gt;&amp;3
+ * read -r status &lt;&amp;3                          # OK
+ * read -r status count &lt;&amp;3                    # OK 4
+ * for ((i = 0; i &lt; count; i++)); do
+ *   IFS=$'\t' read -r kind name value &lt;&amp;3      # P verbose, P level, S 3, R x
+ * done
+ * </pre>
+ *
+ * <p>The server listens on the loopback interface only. As any local process may connect to it, a client must
+ * first present the token of the server (see {@link #getToken()}), which is passed to the clients out of band,
+ * e.g. in a file readable only by their user. Each connection may carry any number of requests; connections
+ * are served concurrently, up to a maximum number (see {@link #setMaxConnections(int)}), further connections
+ * are closed at once. A connection on which nothing is received for the timeout (see {@link #setTimeout(int)}),
+ * during the authentication or between requests, is closed.
+ *
+ * <p>Requests are checked against the limits of the parser (see {@link SeqParser#getLimits()}) and the maximum
+ * request size as they are read, so an oversized request closes the connection before it is buffered.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class ParseServer implements AutoCloseable {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(ParseServer.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return "ParseServer";
+  }
+
+  // constants
+  private static final int BACKLOG = 50;
+  private static final int TOKEN_SIZE = 16;
+  private static final int MAX_TOKEN_SIZE = 256;
+  private static final int DEFAULT_MAX_CONNECTIONS = 64;
+  private static final int DEFAULT_TIMEOUT = 30_000;
+  private static final long KEEP_ALIVE_SECONDS = 60;
+
+  /** The parser. */
+  private final SeqParser parser;
+
+  /** The options. */
+  private final Options options;
+
+  /** If <code>true</code>, stop on the first non-option. */
+  private final boolean stopOnNonOption;
+
+  /** The token the clients must present. */
+  private final String token;
+
+  /** The server socket. */
+  private final ServerSocket serverSocket;
+
+  /** The open connections. */
+  private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+  /** The thread accepting the connections. */
+  private final Thread acceptor = newThread(this::accept, "seqparser-server-accept");
+
+  /** The executor serving the connections, one thread per connection. */
+  private final ThreadPoolExecutor executor = new ThreadPoolExecutor(0, DEFAULT_MAX_CONNECTIONS, KEEP_ALIVE_SECONDS,
+      TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> newThread(runnable, "seqparser-server"));
+
+  /** The maximum size of a request in bytes. */
+  private volatile int maxRequestSize = WireFormat.DEFAULT_MAX_MESSAGE_SIZE;
+
+  /** The read timeout in milliseconds. */
+  private volatile int timeout = DEFAULT_TIMEOUT;
+
+  /**
+   * Gets the port the server listens on.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Gets the token the clients must present.
+   *
+   * @return the token
+   */
+  public String getToken() {
+    return token;
+  }
+
+  /**
+   * Gets the maximum size of a request.
+   *
+   * @return the maximum size of a request in bytes
+   */
+  public int getMaxRequestSize() {
+    return maxRequestSize;
+  }
+
+  /**
+   * Sets the maximum size of a request, i.e. of an encoded argument vector. The default is 16 MiB.
+   *
+   * @param maxRequestSize the maximum size of a request in bytes
+   * @return the server, to facilitate chaining
+   */
+  public ParseServer setMaxRequestSize(final int maxRequestSize) {
+    if (maxRequestSize < Integer.BYTES) {
+      throw new IllegalArgumentException("Invalid request size");
+    }
+    this.maxRequestSize = maxRequestSize;
+    return this;
+  }
+
+  /**
+   * Gets the maximum number of connections served concurrently.
+   *
+   * @return the maximum number of connections
+   */
+  public int getMaxConnections() {
+    return executor.getMaximumPoolSize();
+  }
+
+  /**
+   * Sets the maximum number of connections served concurrently, each by its own thread. Further connections are
+   * closed without a reply. The default is 64.
+   *
+   * @param maxConnections the maximum number of connections
+   * @return the server, to facilitate chaining
+   */
+  public ParseServer setMaxConnections(final int maxConnections) {
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("Invalid number of connections");
+    }
+    executor.setMaximumPoolSize(maxConnections);
+    return this;
+  }
+
+  /**
+   * Gets the read timeout.
+   *
+   * @return the timeout in milliseconds, or <code>0</code> if none
+   */
+  public int getTimeout() {
+    return timeout;
+  }
+
+  /**
+   * Sets the read timeout, applying to the authentication and to waiting for a request. A connection on which
+   * nothing is received for the timeout is closed, so a client must not stay idle longer. The timeout applies
+   * to the connections accepted after it is set. The default is 30 seconds.
+   *
+   * @param timeout the timeout in milliseconds, or <code>0</code> for none
+   * @return the server, to facilitate chaining
+   */
+  public ParseServer setTimeout(final int timeout) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Invalid timeout");
+    }
+    this.timeout = timeout;
+    return this;
+  }
+
+  // accepts the connections
+  private void accept() {
+    try {
+      while (true) {
+        final Socket socket = serverSocket.accept();
+        sockets.add(socket);
+        if (serverSocket.isClosed()) {  // closed meanwhile, after the open connections were closed
+          socket.close();
+          return;
+        }
+        try {
+          executor.execute(() -> serve(socket));
+        } catch (final RejectedExecutionException exception) {
+          log.warning("Connection refused, too many connections");
+          sockets.remove(socket);
+          socket.close();
+        }
+      }
+    } catch (final IOException exception) {
+      if (!serverSocket.isClosed()) {
+        log.log(Level.WARNING, "Accepting connection failed", exception);
+      }
+    }
+  }
+
+  // checks the token presented by the client
+  private boolean isToken(final String presented) {
+    return (presented != null)
+        && MessageDigest.isEqual(presented.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // authenticates the client of the binary protocol
+  private boolean authenticate(final DataInputStream in, final DataOutputStream out) throws IOException {
+    if (!isToken(WireFormat.readString(in, MAX_TOKEN_SIZE))) {
+      out.writeByte(WireFormat.STATUS_ERROR);
+      WireFormat.writeString(out, "Authentication failed");
+      out.flush();
+      return false;
+    }
+    out.writeByte(WireFormat.STATUS_OK);
+    out.flush();
+    return true;
+  }
+
+  // serves a connection of the binary protocol
+  private void serveBinary(final DataInputStream in, final DataOutputStream out) throws IOException {
+    if (!authenticate(in, out)) {
+      log.fine("Connection refused");
+      return;
+    }
+    while (true) {
+      final String[] args;
+      try {
+        args = WireFormat.readArgs(in, parser.getLimits(), maxRequestSize);
+      } catch (final EOFException exception) {
+        return;
+      }
+      final CommandLine cmd;
+      try {
+        cmd = parser.parse(options, args, stopOnNonOption);
+      } catch (final ParseException exception) {
+        out.writeByte(WireFormat.STATUS_ERROR);
+        WireFormat.writeString(out, exception.getMessage());
+        out.flush();
+        continue;
+      }
+      out.writeByte(WireFormat.STATUS_OK);
+      WireFormat.writeCommandLine(out, options, cmd);
+      out.flush();
+    }
+  }
+
+  // serves a connection of the text protocol
+  private void serveText(final InputStream in, final Writer out) throws IOException {
+    if (!isToken(TextFormat.readLine(in, MAX_TOKEN_SIZE + 2))) {  // CR LF
+      TextFormat.writeError(out, "Authentication failed");
+      out.flush();
+      log.fine("Connection refused");
+      return;
+    }
+    out.write(TextFormat.STATUS_OK + '\n');
+    out.flush();
+    for (String line = TextFormat.readLine(in, maxRequestSize); line != null;
+        line = TextFormat.readLine(in, maxRequestSize)) {
+      final CommandLine cmd;
+      try {
+        cmd = parser.parse(options, line, stopOnNonOption);
+      } catch (final ParseException exception) {
+        TextFormat.writeError(out, exception.getMessage());
+        out.flush();
+        continue;
+      }
+      TextFormat.writeCommandLine(out, cmd);
+      out.flush();
+    }
+  }
+
+  // serves a connection
+  private void serve(final Socket socket) {
+    try (Socket s = socket;
+        BufferedInputStream in = new BufferedInputStream(s.getInputStream());
+        BufferedOutputStream out = new BufferedOutputStream(s.getOutputStream())) {
+      s.setSoTimeout(timeout);
+      in.mark(1);
+      final int first = in.read();
+      in.reset();
+      if (first == 0) {  // the length of the token, which is short, starts with a zero byte
+        serveBinary(new DataInputStream(in), new DataOutputStream(out));
+      } else if (first > 0) {
+        serveText(in, new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+      }
+    } catch (final SocketTimeoutException exception) {
+      log.fine("Connection timed out");
+    } catch (final IOException exception) {
+      log.log(Level.FINE, "Connection failed", exception);
+    } finally {
+      sockets.remove(socket);
+    }
+  }
+
+  /**
+   * Starts the server.
+   *
+   * @return the server, to facilitate chaining
+   */
+  public ParseServer start() {
+    acceptor.start();
+    return this;
+  }
+
+  /**
+   * Stops the server. The open connections are closed, so requests in progress fail on the client side.
+   *
+   * @throws IOException on I/O error
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Socket socket : sockets) {
+      socket.close();
+    }
+    executor.shutdownNow();
+  }
+
+  // creates a daemon thread
+  private static Thread newThread(final Runnable runnable, final String name) {
+    final Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  // generates a random token
+  private static String generateToken() {
+    final byte[] bytes = new byte[TOKEN_SIZE];
+    new SecureRandom().nextBytes(bytes);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  /**
+   * Creates the server, listening on the loopback interface, with a random token. The server must be started
+   * by {@link #start()}.
+   *
+   * @param parser the parser, which determines the separator and the limits
+   * @param options the options
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @param port the port, or <code>0</code> for any free port
+   * @throws IOException if the socket cannot be opened
+   */
+  public ParseServer(final SeqParser parser, final Options options, final boolean stopOnNonOption, final int port)
+      throws IOException {
+    this(parser, options, stopOnNonOption, port, generateToken());
+  }
+
+  /**
+   * Creates the server, listening on the loopback interface. The server must be started by {@link #start()}.
+   * As the text protocol reads the token as a line, the token must not contain line breaks, nor start with
+   * a null character, which starts the binary protocol.
+   *
+   * @param parser the parser, which determines the separator and the limits
+   * @param options the options
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @param port the port, or <code>0</code> for any free port
+   * @param token the token the clients must present, of at most 256 bytes in UTF-8
+   * @throws IOException if the socket cannot be opened
+   */
+  public ParseServer(final SeqParser parser, final Options options, final boolean stopOnNonOption, final int port,
+      final String token) throws IOException {
+    if ((token == null) || token.isEmpty() || (token.getBytes(StandardCharsets.UTF_8).length > MAX_TOKEN_SIZE)
+        || (token.charAt(0) == 0) || (token.indexOf('\n') >= 0) || (token.indexOf('\r') >= 0)) {
+      throw new IllegalArgumentException("Invalid token");
+    }
+    this.parser = parser;
+    this.options = options;
+    this.stopOnNonOption = stopOnNonOption;
+    this.token = token;
+    serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+  }
+}
@@ -0,0 +1,103 @@
+/* ParseSink.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+/**
+ * Receiver of the parsing results. The parser reports parameters in the order they appear on the command line;
+ * sub-parameters always belong to the last parameter reported.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+interface ParseSink {
+
+  /** Sink discarding the results. */
+  ParseSink DISCARD = new ParseSink() {
+      @Override
+      public void addParameter(final Option option) {
+        // no action
+      }
+
+      @Override
+      public void addSubParameter(final String value, final SubOption subOption) {
+        // no action
+      }
+
+      @Override
+      public void addKwSubParameter(final String key, final String value, final SubOption subOption) {
+        // no action
+      }
+
+      @Override
+      public void addRemArg(final String arg) {
+        // no action
+      }
+
+      @Override
+      public void addRemArgs(final String[] args, final int from) {
+        // no action
+      }
+    };
+
+  /**
+   * Adds a parameter.
+   *
+   * @param option the option describing the parameter
+   */
+  void addParameter(Option option);
+
+  /**
+   * Adds a positional sub-parameter to the last parameter.
+   *
+   * @param value the value, already type-checked
+   * @param subOption the sub-option describing the sub-parameter
+   * @throws ParseException on invalid value
+   */
+  void addSubParameter(String value, SubOption subOption) throws ParseException;
+
+  /**
+   * Adds a keyword sub-parameter to the last parameter.
+   *
+   * @param key the keyword
+   * @param value the value, already type-checked
+   * @param subOption the sub-option describing the sub-parameter
+   * @throws ParseException on invalid value
+   */
+  void addKwSubParameter(String key, String value, SubOption subOption) throws ParseException;
+
+  /**
+   * Adds a string to the list of remaining arguments.
+   *
+   * @param arg argument to be added
+   */
+  void addRemArg(String arg);
+
+  /**
+   * Adds the tail of an array of arguments to the list of remaining arguments. The elements must not be copied,
+   * only referenced.
+   *
+   * @param args the array of arguments
+   * @param from the index of the first remaining argument
+   */
+  void addRemArgs(String[] args, int from);
+}
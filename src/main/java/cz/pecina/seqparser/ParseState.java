@@ -0,0 +1,366 @@
+/* ParseState.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State of the parser between two arguments. Arguments are processed one at a time, the results are passed
+ * to the sink.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+final class ParseState {
+
+  // constants
+  private static final String INVALID_NUM_PARAMETERS = "Invalid number of positional parameters supplied";
+  private static final ParseLimits NO_LIMITS = new ParseLimits();
+
+  /** Result of processing: the argument was consumed, parsing continues. */
+  static final int CONTINUE = 0;
+
+  /** Result of processing: parsing stopped, the argument is the first remaining one. */
+  static final int STOP_BEFORE = 1;
+
+  /** Result of processing: parsing stopped, the remaining arguments follow the argument. */
+  static final int STOP_AFTER = 2;
+
+  // fields
+  private final Options options;
+  private final boolean stopOnNonOption;
+  private final char sep;
+  private final ParseSink sink;
+  private final InternPool pool;
+  private final boolean keepValues;
+  private final SeqParser.KwScanner kwScanner = new SeqParser.KwScanner();
+  private boolean stopParsing = false;
+  private Option option = null;
+  private boolean expectValue = false;
+  private int numParameters = 0;
+  private List<SubOption> subOptions = null;
+  private int subSize = 0;
+  private int subIdx = 0;
+  private Map<String, SubOption> kwSubOptions = null;
+  private final long[] present;
+  private final int maxArgs;
+  private final int maxArgLength;
+  private final int maxSubParameters;
+  private final int maxTotalSubParameters;
+  private final int maxKwSubParameters;
+  private int numArgs = 0;
+  private int numSubParameters = 0;
+  private int numTotalSubParameters = 0;
+  private int numKwSubParameters = 0;
+  private int optionIndex = -1;
+  private List<ParseError> errors = null;
+  private int maxErrors = 0;
+
+  /**
+   * Checks if parsing has stopped, i.e. all further arguments are remaining arguments.
+   *
+   * @return <code>true</code> if parsing has stopped
+   */
+  boolean isStopped() {
+    return stopParsing;
+  }
+
+  /**
+   * Switches to collecting errors. Instead of throwing an exception on the first error, the errors are added
+   * to a list and parsing continues; an exception is only thrown when the list is full or a limit is exceeded.
+   *
+   * @param errors the list receiving the errors
+   * @param maxErrors the maximum number of errors collected
+   */
+  void collectErrors(final List<ParseError> errors, final int maxErrors) {
+    this.errors = errors;
+    this.maxErrors = maxErrors;
+  }
+
+  /**
+   * Gets the index of the last argument processed.
+   *
+   * @return the index, or <code>-1</code> if none
+   */
+  int getArgIndex() {
+    return numArgs - 1;
+  }
+
+  // reports an error, by throwing an exception, or adding it to the list if errors are collected
+  private void error(final String message, final int argIndex, final int offset) throws ParseException {
+    if (errors == null) {
+      throw new ParseException(message);
+    }
+    errors.add(new ParseError(message, argIndex, offset));
+    if (errors.size() >= maxErrors) {
+      throw new ParseException(message);
+    }
+  }
+
+  /**
+   * Processes an argument. The remaining arguments are not passed to the sink, it is up to the caller to do so.
+   *
+   * @param arg the argument
+   * @return the result of processing, one of {@link #CONTINUE}, {@link #STOP_BEFORE} and {@link #STOP_AFTER}
+   * @throws ParseException on parsing error
+   */
+  int process(final String arg) throws ParseException {
+    return process(arg, arg);
+  }
+
+  // processes an argument, given also unquoted, which is used unless the argument is a value
+  private int process(final String arg, final String plain) throws ParseException {
+    checkArg(arg);
+    if (plain.equals("--")) {
+      stopParsing = true;
+      return STOP_AFTER;
+    } else if (SeqParser.isOption(plain)) {  // option
+      final Option newOption = plain.startsWith("--") ? options.getOptionLong(plain.substring(2))
+          : options.getOptionShort(plain.substring(1));
+      if (newOption == null) {
+        if (stopOnNonOption) {
+          stopParsing = true;
+          return STOP_BEFORE;
+        } else {
+          error("Invalid option: " + plain, getArgIndex(), 0);
+          checkNumParameters();
+          option = null;  // the value of the option, if any, is skipped
+          expectValue = true;
+        }
+      } else {
+        checkNumParameters();
+        option = newOption;
+        expectValue = true;
+        numParameters = 0;
+        numSubParameters = 0;
+        numKwSubParameters = 0;
+        optionIndex = getArgIndex();
+        sink.addParameter(option);
+        if (present != null) {
+          final int ordinal = options.getOrdinal(option);
+          present[ordinal / Long.SIZE] |= 1L << ordinal;
+        }
+        subOptions = option.getSubOptions();
+        subSize = subOptions.size();
+        subIdx = 0;
+        kwSubOptions = option.getKwSubOptions();
+      }
+    } else if (!expectValue) {  // misplaced value
+      if (stopOnNonOption) {
+        stopParsing = true;
+        return STOP_BEFORE;
+      } else {
+        error("Invalid option: " + plain, getArgIndex(), 0);
+      }
+    } else {  // value
+      if (option != null) {
+        processValue(arg);
+      }
+      expectValue = false;
+    }
+    return CONTINUE;
+  }
+
+  // processes a string of sub-parameters
+  private void processValue(final String arg) throws ParseException {
+    final SeqParser.Splitter splitter = new SeqParser.Splitter(arg, sep);
+    while (splitter.hasNext()) {
+      final int offset = splitter.getIndex();
+      final String res = splitter.next();
+      if (++numSubParameters > maxSubParameters) {  // the splitter is lazy, the rest of the argument is not split
+        throw new ParseException("Too many sub-parameters for this option");
+      }
+      if (++numTotalSubParameters > maxTotalSubParameters) {
+        throw new ParseException("Too many sub-parameters");
+      }
+      if (kwScanner.scan(res)) {
+        String key = kwScanner.getKey();
+        if ((pool != null) && (key != null)) {
+          key = pool.intern(key);
+        }
+        if (key == null) {
+          if (subSize == 0) {
+            error("No positional parameters allowed for this option", getArgIndex(), offset);
+          } else {
+            if (numParameters == option.getMaxParameters()) {  // fail fast, before checking the excess values
+              error(INVALID_NUM_PARAMETERS, getArgIndex(), offset);
+              return;
+            }
+            final SubOption subOption = subOptions.get(subIdx);
+            final String val = getValue(subOption);
+            if (BuiltinType.check(subOption.getType(), val)) {
+              sink.addSubParameter(val, subOption);
+            } else {
+              error(String.format("Invalid positional parameter value: \"%s\"", val), getArgIndex(), offset);
+            }
+            numParameters++;
+            if (++subIdx == subSize) {  // use the last sub-option for all the rest
+              subIdx--;
+            }
+          }
+        } else {
+          if (++numKwSubParameters > maxKwSubParameters) {
+            throw new ParseException("Too many keyword parameters for this option");
+          }
+          final SubOption kwSubOption = kwSubOptions.get(key);
+          if (kwSubOption == null) {
+            error("Keyword parameter \"" + key + "\" not allowed for this option", getArgIndex(), offset);
+          } else {
+            final String val = getValue(kwSubOption);
+            if (BuiltinType.check(kwSubOption.getType(), val)) {
+              sink.addKwSubParameter(key, val, kwSubOption);
+            } else {
+              error(String.format("Invalid keyword parameter value: \"%s\"", val), getArgIndex(), offset);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  // gets the value of the scanned sub-parameter; if the results are discarded and the type accepts any string,
+  // the value is not built, and a listed name of a choice is matched within the argument and not built either
+  private String getValue(final SubOption subOption) {
+    final ParameterType type = subOption.getType();
+    if (!keepValues && BuiltinType.acceptsAny(type)) {
+      return "";
+    }
+    if ((type instanceof ChoiceType) && kwScanner.isPlainValue()) {
+      final ChoiceType choice = (ChoiceType) type;
+      final int slot = choice.indexOf(kwScanner.getInput(), kwScanner.getValueStart(), kwScanner.getValueEnd());
+      if (slot >= 0) {
+        return choice.getName(slot);
+      }
+    }
+    final String val = kwScanner.getValue();
+    return (pool == null) ? val : pool.intern(val);
+  }
+
+  /**
+   * Feeds an argument, passing remaining arguments to the sink.
+   *
+   * @param arg the argument
+   * @throws ParseException on parsing error
+   */
+  void feed(final String arg) throws ParseException {
+    if (stopParsing) {
+      checkArg(arg);
+      sink.addRemArg(arg);
+    } else if (process(arg) == STOP_BEFORE) {
+      sink.addRemArg(arg);
+    }
+  }
+
+  /**
+   * Feeds an argument split off a command string, with quotes and escapes kept, passing remaining arguments
+   * to the sink. The argument is unquoted unless it is a value, whose quotes and escapes are interpreted
+   * by the parser.
+   *
+   * @param arg the argument
+   * @throws ParseException on parsing error
+   */
+  void feedQuoted(final String arg) throws ParseException {
+    final String plain = SeqParser.Tokenizer.unquote(arg);
+    if (stopParsing) {
+      checkArg(arg);
+      sink.addRemArg(plain);
+    } else if (process(arg, plain) == STOP_BEFORE) {
+      sink.addRemArg(plain);
+    }
+  }
+
+  // checks an argument against the limits
+  private void checkArg(final String arg) throws ParseException {
+    if (++numArgs > maxArgs) {
+      throw new ParseException("Too many arguments");
+    }
+    if (arg.length() > maxArgLength) {
+      throw new ParseException("Argument too long");
+    }
+  }
+
+  /**
+   * Checks the remaining arguments against the limits, before they are passed to the sink in bulk.
+   *
+   * @param args the string of arguments
+   * @param from the index of the first remaining argument
+   * @throws ParseException if a limit is exceeded
+   */
+  void checkRemArgs(final String[] args, final int from) throws ParseException {
+    for (int i = from; i < args.length; i++) {
+      checkArg(args[i]);
+    }
+  }
+
+  /**
+   * Finishes parsing, performing the final checks, including the constraints declared by the options.
+   *
+   * @throws ParseException on parsing error
+   */
+  void finish() throws ParseException {
+    checkNumParameters();
+    if (present != null) {
+      try {
+        options.checkConstraints(present);
+      } catch (ParseException exception) {
+        error(exception.getMessage(), -1, 0);
+      }
+    }
+  }
+
+  // checks the number of positional parameters of the current option when it is closed; the maximum is
+  // checked as the parameters are added
+  private void checkNumParameters() throws ParseException {
+    if ((option != null) && (numParameters < option.getMinParameters())) {
+      error(INVALID_NUM_PARAMETERS, optionIndex, 0);
+    }
+  }
+
+  /**
+   * Creates the parse state.
+   *
+   * @param options the options
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @param sep the separator character
+   * @param sink the sink receiving the results
+   * @param pool the pool interning the values, or <code>null</code> if none
+   * @param limits the limits on the input, or <code>null</code> if none
+   */
+  ParseState(final Options options, final boolean stopOnNonOption, final char sep, final ParseSink sink,
+      final InternPool pool, final ParseLimits limits) {
+    this.options = options;
+    this.stopOnNonOption = stopOnNonOption;
+    this.sep = sep;
+    this.sink = sink;
+    this.pool = pool;
+    keepValues = sink != ParseSink.DISCARD;
+    final ParseLimits lim = (limits == null) ? NO_LIMITS : limits;
+    maxArgs = lim.getMaxArgs();
+    maxArgLength = lim.getMaxArgLength();
+    maxSubParameters = lim.getMaxSubParameters();
+    maxTotalSubParameters = lim.getMaxTotalSubParameters();
+    maxKwSubParameters = lim.getMaxKwSubParameters();
+    present = options.hasConstraints() ? new long[(options.getNumOptions() + Long.SIZE - 1) / Long.SIZE] : null;
+  }
+}
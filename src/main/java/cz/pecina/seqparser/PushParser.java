@@ -0,0 +1,117 @@
+/* PushParser.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.logging.Logger;
+
+/**
+ * Push parser, accepting the arguments one at a time. It is created by
+ * {@link SeqParser#pushParser(Options, boolean)}; the arguments are passed by {@link #feed(String)} and the result
+ * is obtained by {@link #finish()}. The acceptance rules are identical to
+ * {@link SeqParser#parse(Options, String[], boolean)}.
+ *
+ * <p>Once a parsing error has been reported or the parser has been finished, no more arguments can be fed.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+public final class PushParser {
+
+  // static logger
+  private static final Logger log = Logger.getLogger(PushParser.class.getName());
+
+  // for description see Object
+  @Override
+  public String toString() {
+    return "PushParser";
+  }
+
+  /** The command line being built. */
+  private final CommandLine cmd = new CommandLine();
+
+  /** The parse state. */
+  private final ParseState state;
+
+  /** <code>true</code> if no more arguments are accepted. */
+  private boolean done = false;
+
+  /**
+   * Checks if parsing has stopped, i.e. all further arguments will be added to the remaining arguments.
+   *
+   * @return <code>true</code> if parsing has stopped
+   */
+  public boolean isStopped() {
+    return state.isStopped();
+  }
+
+  /**
+   * Feeds an argument.
+   *
+   * @param arg the argument
+   * @return the push parser, to facilitate chaining
+   * @throws ParseException on parsing error
+   * @throws IllegalStateException if the parser has failed or has been finished
+   */
+  public PushParser feed(final String arg) throws ParseException {
+    checkDone();
+    done = true;  // stays set if an exception is thrown
+    state.feed(arg);
+    done = false;
+    return this;
+  }
+
+  /**
+   * Finishes parsing.
+   *
+   * @return the command line object
+   * @throws ParseException on parsing error
+   * @throws IllegalStateException if the parser has failed or has been finished
+   */
+  public CommandLine finish() throws ParseException {
+    checkDone();
+    done = true;
+    state.finish();
+    return cmd;
+  }
+
+  // checks if more arguments are accepted
+  private void checkDone() {
+    if (done) {
+      throw new IllegalStateException("Parser failed or finished");
+    }
+  }
+
+  /**
+   * Creates the push parser.
+   *
+   * @param options the options
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @param sep the separator character
+   * @param pool the pool interning the values, or <code>null</code> if none
+   * @param limits the limits on the input, or <code>null</code> if none
+   */
+  PushParser(final Options options, final boolean stopOnNonOption, final char sep, final InternPool pool,
+      final ParseLimits limits) {
+    state = new ParseState(options, stopOnNonOption, sep, cmd.getSink(), pool, limits);
+  }
+}
@@ -0,0 +1,114 @@
+/* RegexType.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parameter type accepting the strings matching a regular expression, see {@link ParameterType#Regex(String)}.
+ * The compiled patterns are shared by all the types with the same expression and flags, up to
+ * a bounded number of least recently used patterns; each thread reuses its own matcher, which is reset after
+ * each check so that it does not retain the checked string.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+final class RegexType extends BuiltinType {
+
+  /** The maximum number of cached patterns. */
+  static final int CACHE_SIZE = 256;
+
+  /** The cached patterns, in access order. */
+  private static final Map<java.lang.String, Pattern> CACHE =
+      new LinkedHashMap<java.lang.String, Pattern>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<java.lang.String, Pattern> eldest) {
+        return size() > CACHE_SIZE;
+      }
+    };
+
+  /** The pattern. */
+  private final Pattern pattern;
+
+  /** The matchers of the threads. */
+  private final ThreadLocal<Matcher> matcher;
+
+  /**
+   * Gets a compiled pattern, from the cache if possible.
+   *
+   * @param regex the regular expression
+   * @param flags the flags, see {@link Pattern#compile(String, int)}
+   * @return the pattern
+   */
+  static Pattern compile(final java.lang.String regex, final int flags) {
+    final java.lang.String key = flags + ":" + regex;
+    synchronized (CACHE) {
+      Pattern res = CACHE.get(key);
+      if (res == null) {
+        res = Pattern.compile(regex, flags);
+        CACHE.put(key, res);
+      }
+      return res;
+    }
+  }
+
+  /**
+   * Gets the pattern.
+   *
+   * @return the pattern
+   */
+  Pattern getPattern() {
+    return pattern;
+  }
+
+  @Override
+  public boolean check(final java.lang.String str) {
+    if (str == null) {
+      return false;
+    }
+    final Matcher m = matcher.get();
+    final boolean res = m.reset(str).matches();
+    m.reset("");  // the matcher must not keep the string alive
+    return res;
+  }
+
+  @Override
+  public java.lang.String getSpec() {
+    return "Regex(" + pattern.flags() + "," + pattern.pattern() + ")";
+  }
+
+  /**
+   * Creates the type.
+   *
+   * @param regex the regular expression
+   * @param flags the flags, see {@link Pattern#compile(String, int)}
+   */
+  RegexType(final java.lang.String regex, final int flags) {
+    super(KIND_REGEX);
+    pattern = compile(regex, flags);
+    matcher = ThreadLocal.withInitial(() -> pattern.matcher(""));
+  }
+}
@@ -22,14 +22,13 @@
 
 package cz.pecina.seqparser;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.logging.Logger;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * SeqParser object.
@@ -48,16 +47,19 @@ public final class SeqParser {
     return "SeqParser";
   }
 
-  // constants
-  private static final String SPEC_STR = "\u007f";
-
   /** The default separator character. */
   static final char DEFAULT_SEP = ',';
 
-  /** Regex for checking option. */
+  /**
+   * Regex defining an option. It only serves as the specification, options are recognized by
+   * {@link #isOption(String)}.
+   */
   static final Pattern RE_OPT = Pattern.compile("^-[-]?[\\p{Alpha}_].*$");
 
-  /** Regex for parsing sub-parameters. */
+  /**
+   * Regex defining a sub-parameter: the optional keyword, the quote and the value. It only serves as
+   * the specification, sub-parameters are parsed by {@link KwScanner}.
+   */
   static final Pattern RE_KW =
       Pattern.compile("^(?:([\\p{Alpha}_][\\p{Alnum}_]*(?:-[\\p{Alnum}_]+)*)=)?(['\"]?)(.*)\\2$");
 
@@ -88,6 +90,52 @@ public final class SeqParser {
     return this;
   }
 
+  /** The pool interning the values, or <code>null</code> if none. */
+  private InternPool internPool = null;
+
+  /**
+   * Gets the pool interning the sub-parameter values and keywords.
+   *
+   * @return the pool, or <code>null</code> if values are not interned
+   */
+  public InternPool getInternPool() {
+    return internPool;
+  }
+
+  /**
+   * Sets the pool interning the sub-parameter values and keywords. Interning is disabled by default.
+   *
+   * @param internPool the pool, or <code>null</code> to disable interning
+   * @return the parser object, to facilitate chaining
+   */
+  public SeqParser setInternPool(final InternPool internPool) {
+    this.internPool = internPool;
+    return this;
+  }
+
+  /** The limits on the input, or <code>null</code> if none. */
+  private ParseLimits limits = null;
+
+  /**
+   * Gets the limits on the input.
+   *
+   * @return the limits, or <code>null</code> if the input is not limited
+   */
+  public ParseLimits getLimits() {
+    return limits;
+  }
+
+  /**
+   * Sets the limits on the input, for parsing untrusted arguments. The input is not limited by default.
+   *
+   * @param limits the limits, or <code>null</code> to remove the limits
+   * @return the parser object, to facilitate chaining
+   */
+  public SeqParser setLimits(final ParseLimits limits) {
+    this.limits = limits;
+    return this;
+  }
+
   /**
    * Parser for the string of sub-parameters.
    */
@@ -162,6 +210,16 @@ public final class SeqParser {
       return res;
     }
 
+    /**
+     * Gets the index in the input string of the next character to be split off, i.e. the offset of the next
+     * sub-parameter.
+     *
+     * @return the index
+     */
+    int getIndex() {
+      return idx;
+    }
+
     /**
      * Creates a new splitter object.
      *
@@ -174,6 +232,384 @@ public final class SeqParser {
     }
   }
 
+  /**
+   * Tokenizer splitting a command string into arguments. Arguments are separated by whitespace; the quoting and
+   * escaping rules are those of {@link Splitter}, and quotes and escape characters are kept in the arguments, to be
+   * interpreted by the parser. As the arguments are verbatim parts of the input, they are obtained as substrings,
+   * without copying character by character. Arguments that are not values of options are unquoted by
+   * {@link #unquote(String)}.
+   */
+  static class Tokenizer implements Iterator<String>, Iterable<String> {
+
+    // constants
+    private static final char ESCAPE = '\\';
+    private static final char SINGLE_QUOTE = '\'';
+    private static final char DOUBLE_QUOTE = '"';
+
+    // fields
+    private final String inp;
+    private int idx = 0;
+
+    // for description see Iterable
+    @Override
+    public Iterator<String> iterator() {
+      return this;
+    }
+
+    // for description see Iterator
+    @Override
+    public boolean hasNext() {
+      while ((idx < inp.length()) && Character.isWhitespace(inp.charAt(idx))) {
+        idx++;
+      }
+      return idx < inp.length();
+    }
+
+    // for description see Iterator
+    @Override
+    public String next() throws NoSuchElementException {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final int start = idx;
+      boolean singleQuote = false;
+      boolean doubleQuote = false;
+      boolean escape = false;
+      for (; idx < inp.length(); idx++) {
+        final char ch = inp.charAt(idx);
+        if (ch == ESCAPE) {
+          escape = true;
+        } else if (escape) {
+          escape = false;
+        } else if (Character.isWhitespace(ch) && !singleQuote && !doubleQuote) {
+          break;
+        } else if (ch == SINGLE_QUOTE) {
+          if (singleQuote) {
+            singleQuote = false;
+          } else if (!doubleQuote) {
+            singleQuote = true;
+          }
+        } else if (ch == DOUBLE_QUOTE) {
+          if (doubleQuote) {
+            doubleQuote = false;
+          } else if (!singleQuote) {
+            doubleQuote = true;
+          }
+        }
+      }
+      return inp.substring(start, idx);
+    }
+
+    /**
+     * Removes the quotes and escapes from an argument, as a shell does, the quoting rules being those of splitting:
+     * a run of escape characters makes the next character literal, each pair of them yields an escape character
+     * and a single one is dropped, as in the values of sub-parameters; quotes are removed. An argument without
+     * quotes and escapes is returned as is.
+     *
+     * @param arg the argument
+     * @return the unquoted argument
+     */
+    static String unquote(final String arg) {
+      int idx = 0;
+      while ((idx < arg.length()) && (arg.charAt(idx) != ESCAPE) && (arg.charAt(idx) != SINGLE_QUOTE)
+          && (arg.charAt(idx) != DOUBLE_QUOTE)) {
+        idx++;
+      }
+      if (idx == arg.length()) {
+        return arg;
+      }
+      final StringBuilder res = new StringBuilder(arg.length()).append(arg, 0, idx);
+      boolean singleQuote = false;
+      boolean doubleQuote = false;
+      int numEscapes = 0;
+      for (; idx < arg.length(); idx++) {
+        final char ch = arg.charAt(idx);
+        if (ch == ESCAPE) {
+          if ((++numEscapes % 2) == 0) {
+            res.append(ESCAPE);
+          }
+        } else if (numEscapes > 0) {
+          numEscapes = 0;
+          res.append(ch);
+        } else if ((ch == SINGLE_QUOTE) && !doubleQuote) {
+          singleQuote = !singleQuote;
+        } else if ((ch == DOUBLE_QUOTE) && !singleQuote) {
+          doubleQuote = !doubleQuote;
+        } else {
+          res.append(ch);
+        }
+      }
+      return res.toString();
+    }
+
+    /**
+     * Creates a new tokenizer object.
+     *
+     * @param inp the input string
+     */
+    Tokenizer(final String inp) {
+      this.inp = inp;
+    }
+  }
+
+  /**
+   * Whether the characters examined by {@link #isOption(String)} and {@link KwScanner} are counted, to test that
+   * the work is linear in the length of the input. Set by the system property
+   * <code>cz.pecina.seqparser.countVisits</code>; if not set, the counting is compiled away.
+   */
+  static final boolean COUNT_VISITS = Boolean.getBoolean("cz.pecina.seqparser.countVisits");
+
+  /**
+   * The number of characters examined, if counted (see {@link #COUNT_VISITS}).
+   */
+  static long visits = 0;
+
+  // gets a character of a string, counting the visit
+  private static char charAt(final String str, final int idx) {
+    if (COUNT_VISITS) {
+      visits++;
+    }
+    return str.charAt(idx);
+  }
+
+  // checks if a character is a line terminator, as understood by regexes
+  private static boolean isLineTerminator(final char ch) {
+    return (ch == '\n') || (ch == '\r') || (ch == '\u0085') || (ch == '\u2028') || (ch == '\u2029');
+  }
+
+  // checks if a character is an ASCII letter or underscore
+  private static boolean isAlpha(final char ch) {
+    return ((ch >= 'a') && (ch <= 'z')) || ((ch >= 'A') && (ch <= 'Z')) || (ch == '_');
+  }
+
+  // checks if a character is an ASCII letter, digit or underscore
+  private static boolean isAlnum(final char ch) {
+    return isAlpha(ch) || ((ch >= '0') && (ch <= '9'));
+  }
+
+  // finds the first line terminator in a string, starting at an index
+  private static int findLineTerminator(final String str, final int start) {
+    int idx = start;
+    while ((idx < str.length()) && !isLineTerminator(charAt(str, idx))) {
+      idx++;
+    }
+    return idx;
+  }
+
+  /**
+   * Checks if an argument is an option, as defined by {@link #RE_OPT}. The argument is scanned once.
+   *
+   * @param arg the argument
+   * @return <code>true</code> if the argument is an option
+   */
+  static boolean isOption(final String arg) {
+    final int len = arg.length();
+    if ((len < 2) || (charAt(arg, 0) != '-')) {
+      return false;
+    }
+    final int idx = (charAt(arg, 1) == '-') ? 2 : 1;
+    return (idx < len) && isAlpha(charAt(arg, idx)) && (findLineTerminator(arg, idx + 1) == len);
+  }
+
+  /**
+   * Scanner of a sub-parameter, splitting it into the keyword and the value as defined by {@link #RE_KW}.
+   * The regex is matched without backtracking: the keyword, if any, ends at the first character that cannot be
+   * part of it, the value cannot extend past the first line terminator, and the end anchor and the closing quote
+   * can only match within the last three characters, so at most six candidate ends are tried. The sub-parameter
+   * is thus scanned in time linear in its length. The scanner is reusable.
+   */
+  static final class KwScanner {
+
+    // constants
+    private static final char ESCAPE = '\\';
+    private static final char SPEC_CHAR = '\u007f';
+
+    // fields
+    private String inp;
+    private int keyEnd;
+    private int quoteEnd;
+    private int valEnd;
+
+    // checks if the end anchor of the regex matches at an index
+    private boolean isEnd(final int idx) {
+      final int len = inp.length();
+      if (idx == len) {
+        return true;
+      } else if (idx == len - 1) {
+        final char ch = charAt(inp, idx);
+        return isLineTerminator(ch) && !((ch == '\n') && (idx > 0) && (charAt(inp, idx - 1) == '\r'));
+      } else if (idx == len - 2) {
+        return (charAt(inp, idx) == '\r') && (charAt(inp, idx + 1) == '\n');
+      }
+      return false;
+    }
+
+    // matches the quote, the value and the end anchor from an index
+    private boolean scanValue(final int start) {
+      final int len = inp.length();
+      if (start < len) {
+        final char quote = charAt(inp, start);
+        if ((quote == '\'') || (quote == '"')) {  // greedy: quoted first, the longest value first
+          final int limit = findLineTerminator(inp, start + 1);
+          for (int idx = Math.min(len, limit) - 1; (idx > start) && (idx >= len - 3); idx--) {
+            if ((charAt(inp, idx) == quote) && isEnd(idx + 1)) {
+              quoteEnd = start + 1;
+              valEnd = idx;
+              return true;
+            }
+          }
+        }
+      }
+      final int limit = findLineTerminator(inp, start);
+      for (int idx = limit; (idx >= start) && (idx >= len - 2); idx--) {
+        if (isEnd(idx)) {
+          quoteEnd = start;
+          valEnd = idx;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Scans a sub-parameter.
+     *
+     * @param str the sub-parameter
+     * @return <code>true</code> if the sub-parameter matches the regex; if not, it is ignored
+     */
+    boolean scan(final String str) {
+      inp = str;
+      final int len = str.length();
+      int idx = 0;
+      if ((len > 0) && isAlpha(charAt(str, 0))) {
+        idx = 1;
+        while (idx < len) {
+          final char ch = charAt(str, idx);
+          if (isAlnum(ch)) {
+            idx++;
+          } else if ((ch == '-') && (idx + 1 < len) && isAlnum(charAt(str, idx + 1))) {
+            idx += 2;
+          } else {
+            break;
+          }
+        }
+        if ((idx < len) && (charAt(str, idx) == '=') && scanValue(idx + 1)) {
+          keyEnd = idx;
+          return true;
+        }
+      }
+      keyEnd = -1;
+      return scanValue(0);
+    }
+
+    /**
+     * Gets the keyword of the last scanned sub-parameter.
+     *
+     * @return the keyword, or <code>null</code> if none
+     */
+    String getKey() {
+      return (keyEnd < 0) ? null : inp.substring(0, keyEnd);
+    }
+
+    /**
+     * Gets the quote of the last scanned sub-parameter.
+     *
+     * @return the quote, or an empty string if none
+     */
+    String getQuote() {
+      final int valStart = keyEnd + 1;
+      return inp.substring(valStart, quoteEnd);
+    }
+
+    /**
+     * Gets the value of the last scanned sub-parameter, with escapes left in place.
+     *
+     * @return the value
+     */
+    String getRawValue() {
+      return inp.substring(quoteEnd, valEnd);
+    }
+
+    /**
+     * Gets the last scanned sub-parameter.
+     *
+     * @return the sub-parameter
+     */
+    String getInput() {
+      return inp;
+    }
+
+    /**
+     * Gets the start of the value of the last scanned sub-parameter.
+     *
+     * @return the index of the first character of the value
+     */
+    int getValueStart() {
+      return quoteEnd;
+    }
+
+    /**
+     * Gets the end of the value of the last scanned sub-parameter.
+     *
+     * @return the index after the last character of the value
+     */
+    int getValueEnd() {
+      return valEnd;
+    }
+
+    // finds the first character of the value that is resolved as an escape, or the end of the value
+    private int findEscape() {
+      int idx = quoteEnd;
+      while (idx < valEnd) {
+        final char ch = charAt(inp, idx);
+        if ((ch == ESCAPE) || (ch == SPEC_CHAR)) {
+          break;
+        }
+        idx++;
+      }
+      return idx;
+    }
+
+    /**
+     * Checks if the value of the last scanned sub-parameter has no escapes, i.e. if it is the span of the
+     * sub-parameter from {@link #getValueStart()} to {@link #getValueEnd()}.
+     *
+     * @return <code>true</code> if the value has no escapes
+     */
+    boolean isPlainValue() {
+      return findEscape() == valEnd;
+    }
+
+    /**
+     * Gets the value of the last scanned sub-parameter, with escapes resolved: a doubled escape character
+     * stands for itself, other escape characters are dropped, and the delete character (U+007F) is converted to
+     * the escape character.
+     *
+     * @return the value
+     */
+    String getValue() {
+      int idx = findEscape();
+      if (idx == valEnd) {
+        return getRawValue();
+      }
+      final StringBuilder res = new StringBuilder(valEnd - quoteEnd).append(inp, quoteEnd, idx);
+      while (idx < valEnd) {
+        final char ch = charAt(inp, idx++);
+        if (ch == ESCAPE) {
+          if ((idx < valEnd) && (charAt(inp, idx) == ESCAPE)) {
+            res.append(ESCAPE);
+            idx++;
+          }
+        } else if (ch == SPEC_CHAR) {
+          res.append(ESCAPE);
+        } else {
+          res.append(ch);
+        }
+      }
+      return res.toString();
+    }
+  }
+
   /**
    * Parses a string of arguments.
    *
@@ -186,88 +622,210 @@ public final class SeqParser {
   public CommandLine parse(final Options options, final String[] args, final boolean stopOnNonOption)
       throws ParseException {
     final CommandLine cmd = new CommandLine();
-    boolean stopParsing = false;
-    Option option = null;
-    Parameter parameter = null;
-    List<SubOption> subOptions = null;
-    int subSize = 0;
-    int subIdx = 0;
-    Map<String, SubOption> kwSubOptions = null;
-    for (String arg : args) {
-      if (stopParsing) {
-        cmd.addRemArg(arg);
-      } else if (arg.equals("--")) {
-        stopParsing = true;
-      } else if (RE_OPT.matcher(arg).matches()) {  // option
-        option = arg.startsWith("--") ? options.getOptionLong(arg.substring(2)) : options.getOptionShort(arg.substring(1));
-        if (option == null) {
-          if (stopOnNonOption) {
-            cmd.addRemArg(arg);
-            stopParsing = true;
-          } else {
-            throw new ParseException("Invalid option: " + arg);
-          }
-        } else {
-          parameter = new Parameter(option);
-          cmd.addParameter(parameter);
-          subOptions = option.getSubOptions();
-          subSize = subOptions.size();
-          subIdx = 0;
-          kwSubOptions = option.getKwSubOptions();
-        }
-      } else if (parameter == null) {  // misplaced value
-        if (stopOnNonOption) {
-          cmd.addRemArg(arg);
-          stopParsing = true;
-        } else {
-          throw new ParseException("Invalid option: " + arg);
-        }
-      } else {  // value
-        for (String res : new Splitter(arg, getSep())) {
-          final Matcher kwMatcher = RE_KW.matcher(res);
-          while (kwMatcher.find()) {
-            final MatchResult kwRes = kwMatcher.toMatchResult();
-            final String key = kwRes.group(1);
-            final String val = kwRes.group(3).replace("\\\\", SPEC_STR).replace("\\", "").replace(SPEC_STR, "\\");
-            if (key == null) {
-              if (subSize == 0) {
-                throw new ParseException("No positional parameters allowed for this option");
-              } else {
-                final SubOption subOption = subOptions.get(subIdx);
-                if (!subOption.getType().check(val)) {
-                  throw new ParseException(String.format("Invalid positional parameter value: \"%s\"", val));
-                }
-                parameter.addSubParameter(new SubParameter(val, subOption));
-                if (++subIdx == subSize) {  // use the last sub-option for all the rest
-                  subIdx--;
-                }
-              }
-            } else {
-              final SubOption kwSubOption = kwSubOptions.get(key);
-              if (kwSubOption == null) {
-                throw new ParseException("Keyword parameter \"" + key + "\" not allowed for this option");
-              } else {
-                if (!kwSubOption.getType().check(val)) {
-                  throw new ParseException(String.format("Invalid keyword parameter value: \"%s\"", val));
-                }
-                parameter.addKwSubParameter(key, new SubParameter(val, kwSubOption));
-              }
-            }
-          }
-        }
-        parameter = null;
+    parse(options, args, stopOnNonOption, cmd.getSink());
+    return cmd;
+  }
+
+  /**
+   * Parses a command string. The string is split into arguments at whitespace that is neither quoted nor escaped;
+   * quotes and escapes follow the same rules as within sub-parameters. In the values of options, they are kept for
+   * the parser to interpret, so that e.g. <code>-text "a, b"</code> yields a single sub-parameter
+   * <code>a, b</code>. Other arguments are unquoted, as by a shell, so that e.g. <code>"--text"</code> is
+   * an option and <code>-- "a b"</code> yields the remaining argument <code>a b</code>; whether an argument is
+   * an option is decided after unquoting. The arguments are fed to the parser as they are split off, no
+   * intermediate array is built.
+   *
+   * @param options the options
+   * @param commandLine the command string
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @return the command line object
+   * @throws ParseException on parsing error
+   */
+  public CommandLine parse(final Options options, final String commandLine, final boolean stopOnNonOption)
+      throws ParseException {
+    final CommandLine cmd = new CommandLine();
+    final ParseState state = new ParseState(options, stopOnNonOption, getSep(), cmd.getSink(), internPool, limits);
+    for (String arg : new Tokenizer(commandLine)) {
+      state.feedQuoted(arg);
+    }
+    state.finish();
+    return cmd;
+  }
+
+  /**
+   * Parses arguments supplied by an iterator. The arguments are consumed lazily, one at a time, and the results
+   * are identical to {@link #parse(Options, String[], boolean)}.
+   *
+   * @param options the options
+   * @param args the iterator over the arguments
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @return the command line object
+   * @throws ParseException on parsing error
+   */
+  public CommandLine parse(final Options options, final Iterator<String> args, final boolean stopOnNonOption)
+      throws ParseException {
+    final CommandLine cmd = new CommandLine();
+    final ParseState state = new ParseState(options, stopOnNonOption, getSep(), cmd.getSink(), internPool, limits);
+    while (args.hasNext()) {
+      state.feed(args.next());
+    }
+    state.finish();
+    return cmd;
+  }
+
+  /**
+   * Parses arguments supplied by an iterable. The arguments are consumed lazily, one at a time, and the results
+   * are identical to {@link #parse(Options, String[], boolean)}.
+   *
+   * @param options the options
+   * @param args the iterable of arguments
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @return the command line object
+   * @throws ParseException on parsing error
+   */
+  public CommandLine parse(final Options options, final Iterable<String> args, final boolean stopOnNonOption)
+      throws ParseException {
+    return parse(options, args.iterator(), stopOnNonOption);
+  }
+
+  /**
+   * Parses arguments supplied by a stream. The arguments are consumed lazily, one at a time, and the results
+   * are identical to {@link #parse(Options, String[], boolean)}. The stream is not closed.
+   *
+   * @param options the options
+   * @param args the stream of arguments
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @return the command line object
+   * @throws ParseException on parsing error
+   */
+  public CommandLine parse(final Options options, final Stream<String> args, final boolean stopOnNonOption)
+      throws ParseException {
+    return parse(options, args.iterator(), stopOnNonOption);
+  }
+
+  // parses the arguments, passing the results to the sink
+  private void parse(final Options options, final String[] args, final boolean stopOnNonOption, final ParseSink sink)
+      throws ParseException {
+    parse(new ParseState(options, stopOnNonOption, getSep(), sink, internPool, limits), args, sink);
+  }
+
+  // parses the arguments, using a prepared parse state
+  private static void parse(final ParseState state, final String[] args, final ParseSink sink)
+      throws ParseException {
+    for (int i = 0; i < args.length; i++) {
+      final int res = state.process(args[i]);
+      if (res != ParseState.CONTINUE) {
+        state.checkRemArgs(args, i + 1);  // the current argument has been checked already
+        sink.addRemArgs(args, (res == ParseState.STOP_BEFORE) ? i : (i + 1));
+        break;
       }
     }
-    for (Parameter par : cmd.getParameters()) {
-      final int subPars = par.getSubParameters().size();
-      final Option opt = par.getOption();
-      if ((subPars < opt.getMinParameters()) || (subPars > opt.getMaxParameters())) {
-        throw new ParseException("Invalid number of positional parameters supplied");
+    state.finish();
+  }
+
+  /**
+   * Validates a string of arguments. The acceptance rules are identical to
+   * {@link #parse(Options, String[], boolean)}, and so is the exception thrown on the first error, but no
+   * command line, parameter or sub-parameter objects are created, and values that need not be type-checked are
+   * not unescaped.
+   *
+   * @param options the options
+   * @param args the string of arguments
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @throws ParseException on parsing error
+   */
+  public void validate(final Options options, final String[] args, final boolean stopOnNonOption)
+      throws ParseException {
+    parse(new ParseState(options, stopOnNonOption, getSep(), ParseSink.DISCARD, null, limits), args,
+        ParseSink.DISCARD);
+  }
+
+  /**
+   * Checks a string of arguments, collecting all errors instead of stopping at the first one. After an error,
+   * parsing continues with the next sub-parameter or argument: an invalid value is skipped, the value following
+   * an unknown option is ignored, and excess positional sub-parameters are reported once per argument. Collecting
+   * stops when the maximum number of errors is reached, or on exceeding a limit set by
+   * {@link #setLimits(ParseLimits)}. No command line object is created.
+   *
+   * @param options the options
+   * @param args the string of arguments
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @param maxErrors the maximum number of errors collected
+   * @return the errors, in the order they were found, empty if the arguments are valid
+   * @throws IllegalArgumentException if <code>maxErrors</code> is not positive
+   */
+  public List<ParseError> collectErrors(final Options options, final String[] args, final boolean stopOnNonOption,
+      final int maxErrors) {
+    if (maxErrors < 1) {
+      throw new IllegalArgumentException("Invalid maximum number of errors");
+    }
+    final List<ParseError> errors = new ArrayList<>();
+    final ParseState state = new ParseState(options, stopOnNonOption, getSep(), ParseSink.DISCARD, null, limits);
+    state.collectErrors(errors, maxErrors);
+    try {
+      parse(state, args, ParseSink.DISCARD);
+    } catch (ParseException exception) {
+      if (errors.size() < maxErrors) {  // not yet collected, a limit was exceeded
+        errors.add(new ParseError(exception.getMessage(), state.getArgIndex(), 0));
       }
     }
+    return errors;
+  }
+
+  /**
+   * Parses a string of arguments into a compact command line object. The acceptance rules are identical
+   * to {@link #parse(Options, String[], boolean)}, but the result is stored in a few arrays instead of a graph
+   * of objects, which is suitable for very large numbers of arguments.
+   *
+   * @param options the options
+   * @param args the string of arguments
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @return the compact command line object
+   * @throws ParseException on parsing error
+   */
+  public CompactCommandLine parseCompact(final Options options, final String[] args, final boolean stopOnNonOption)
+      throws ParseException {
+    return parseCompact(options, args, stopOnNonOption, false);
+  }
+
+  /**
+   * Parses a string of arguments into a compact command line object, optionally keeping the values outside
+   * the Java heap. The off-heap buffer is released in bulk when the result is closed. Freeing the memory at that
+   * point relies on <code>sun.misc.Unsafe.invokeCleaner</code>, called reflectively, on Java 9 and later, and on
+   * the internal cleaner of the buffer on Java 8; where neither is accessible, the memory is reclaimed by
+   * the garbage collector as usual.
+   *
+   * @param options the options
+   * @param args the string of arguments
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @param direct if <code>true</code>, the values are stored outside the Java heap
+   * @return the compact command line object
+   * @throws ParseException on parsing error
+   */
+  public CompactCommandLine parseCompact(final Options options, final String[] args, final boolean stopOnNonOption,
+      final boolean direct) throws ParseException {
+    final CompactCommandLine cmd = new CompactCommandLine(options, direct);
+    try {
+      parse(options, args, stopOnNonOption, cmd.getSink());
+    } catch (ParseException exception) {
+      cmd.close();
+      throw exception;
+    }
     return cmd;
   }
 
+  /**
+   * Creates a push parser, to which the arguments are fed one at a time. Each argument is processed as soon as
+   * it arrives, so parsing errors surface immediately.
+   *
+   * @param options the options
+   * @param stopOnNonOption if <code>true</code>, stop on the first non-option
+   * @return the push parser
+   */
+  public PushParser pushParser(final Options options, final boolean stopOnNonOption) {
+    return new PushParser(options, stopOnNonOption, getSep(), internPool, limits);
+  }
+
   /**
    * Creates a new parser object, using the default separator (",").
    */
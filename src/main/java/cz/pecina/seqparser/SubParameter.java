@@ -47,6 +47,9 @@ public final class SubParameter {
   /** Raw (string) value of the sub-parameter. */
   private final String value;
 
+  /** Numeric value of the sub-parameter, if known from decoding, otherwise <code>null</code>. */
+  private final Number number;
+
   /**
    * Gets the sub-option.
    *
@@ -80,7 +83,24 @@ public final class SubParameter {
    * @return the integer value
    */
   public int getAsInt() {
-    return Integer.valueOf(value);
+    final ParameterType type = subOption.getType();
+    if (type instanceof IntParameterType) {
+      return (number != null) ? number.intValue() : ((IntParameterType) type).parseInt(value);
+    }
+    return Integer.parseInt(value);
+  }
+
+  /**
+   * Gets the value as long integer.
+   *
+   * @return the long integer value
+   */
+  public long getAsLong() {
+    final ParameterType type = subOption.getType();
+    if (type instanceof LongParameterType) {
+      return (number != null) ? number.longValue() : ((LongParameterType) type).parseLong(value);
+    }
+    return Long.parseLong(value);
   }
 
   /**
@@ -89,7 +109,9 @@ public final class SubParameter {
    * @return the float value
    */
   public float getAsFloat() {
-    return Float.valueOf(value);
+    final ParameterType type = subOption.getType();
+    return (type instanceof DoubleParameterType) ? ((DoubleParameterType) type).parseFloat(value)
+      : Float.parseFloat(value);
   }
 
   /**
@@ -98,7 +120,11 @@ public final class SubParameter {
    * @return the double value
    */
   public double getAsDouble() {
-    return Double.valueOf(value);
+    final ParameterType type = subOption.getType();
+    if (type instanceof DoubleParameterType) {
+      return (number != null) ? number.doubleValue() : ((DoubleParameterType) type).parseDouble(value);
+    }
+    return Double.parseDouble(value);
   }
 
   /**
@@ -118,10 +144,41 @@ public final class SubParameter {
    * @throws ParseException on parse error
    */
   SubParameter(final String str, final SubOption subOption) throws ParseException {
-    this.value = str;
-    this.subOption = subOption;
-    if ((str == null) || !subOption.getType().check(str)) {
+    this(subOption, str, null);
+    if ((str == null) || !BuiltinType.check(subOption.getType(), str)) {
       throw new ParseException("Invalid parameter value: " + str);
     }
   }
+
+  // creates the sub-parameter without checking the value
+  private SubParameter(final SubOption subOption, final String str, final Number number) {
+    this.value = str;
+    this.subOption = subOption;
+    this.number = number;
+  }
+
+  /**
+   * Creates the sub-parameter from a value that has already been type-checked.
+   *
+   * @param str the checked value
+   * @param subOption the sub-option describing the sub-parameter
+   * @return the sub-parameter
+   */
+  static SubParameter ofChecked(final String str, final SubOption subOption) {
+    return new SubParameter(subOption, str, null);
+  }
+
+  /**
+   * Creates the sub-parameter from a value that has already been type-checked, with its numeric value, which
+   * must be the one the integer, long integer or floating-point type of the sub-option returns for the value
+   * and is then returned without parsing.
+   *
+   * @param str the checked value
+   * @param subOption the sub-option describing the sub-parameter
+   * @param number the numeric value
+   * @return the sub-parameter
+   */
+  static SubParameter ofChecked(final String str, final SubOption subOption, final Number number) {
+    return new SubParameter(subOption, str, number);
+  }
 }
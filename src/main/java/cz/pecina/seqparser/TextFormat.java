@@ -0,0 +1,166 @@
+/* TextFormat.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text format of the messages exchanged by {@link ParseServer} and thin clients, which need neither a JVM nor
+ * the options, e.g. a shell script.
+ *
+ * <p>All messages are lines of UTF-8 text terminated by a line feed. A connection starts with the client sending
+ * the token of the server and the server replying with <code>OK</code>, or with <code>ERROR</code> followed by
+ * a space and the error message if the token is wrong. A request is a command string, split into arguments as
+ * by {@link SeqParser#parse(Options, String, boolean)}. A reply is either <code>ERROR</code> followed by a space
+ * and the error message, or <code>OK</code> followed by a space and the number of lines that follow, one for
+ * each item of the parsed command line, in order. The fields of these lines are separated by tabs:
+ * <ul>
+ * <li><code>P</code> and the name of the option (see {@link Option#getName()}), starting a parameter,</li>
+ * <li><code>S</code> and the value of a positional sub-parameter of the last parameter,</li>
+ * <li><code>K</code>, the keyword and the value of a keyword sub-parameter of the last parameter,</li>
+ * <li><code>R</code> and a remaining argument.</li>
+ * </ul>
+ * In the values and error messages, the backslash, tab, line feed and carriage return are escaped as
+ * <code>\\</code>, <code>\t</code>, <code>\n</code> and <code>\r</code>.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+final class TextFormat {
+
+  /** Status of a successful reply. */
+  static final String STATUS_OK = "OK";
+
+  /** Status of a reply reporting an error. */
+  static final String STATUS_ERROR = "ERROR";
+
+  // constants
+  private static final int INITIAL_LINE_SIZE = 128;
+  private static final String ESCAPED = "\\\t\n\r";
+  private static final String ESCAPES = "\\tnr";
+
+  /**
+   * Escapes a value or an error message.
+   *
+   * @param str the string
+   * @return the escaped string
+   */
+  static String escape(final String str) {
+    StringBuilder res = null;
+    for (int i = 0; i < str.length(); i++) {
+      final char ch = str.charAt(i);
+      final int esc = ESCAPED.indexOf(ch);
+      if (esc >= 0) {
+        if (res == null) {
+          res = new StringBuilder(2 * str.length()).append(str, 0, i);
+        }
+        res.append('\\').append(ESCAPES.charAt(esc));
+      } else if (res != null) {
+        res.append(ch);
+      }
+    }
+    return (res == null) ? str : res.toString();
+  }
+
+  /**
+   * Reads a line, without the terminating line feed and a carriage return preceding it.
+   *
+   * @param in the input
+   * @param maxSize the maximum length of the line in bytes, including the line feed
+   * @return the line, or <code>null</code> at the end of the input
+   * @throws IOException on I/O error or if the line is too long
+   */
+  static String readLine(final InputStream in, final int maxSize) throws IOException {
+    byte[] bytes = new byte[Math.min(maxSize, INITIAL_LINE_SIZE)];
+    int len = 0;
+    for (int b = in.read(); b != '\n'; b = in.read()) {
+      if (b < 0) {
+        if (len == 0) {
+          return null;
+        }
+        break;
+      }
+      if (len + 1 >= maxSize) {
+        throw new IOException("Message too large");
+      }
+      if (len == bytes.length) {
+        bytes = Arrays.copyOf(bytes, (int) Math.min(maxSize, 2L * len));
+      }
+      bytes[len++] = (byte) b;
+    }
+    if ((len > 0) && (bytes[len - 1] == '\r')) {
+      len--;
+    }
+    return new String(bytes, 0, len, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes an error reply.
+   *
+   * @param out the output
+   * @param message the error message
+   * @throws IOException on I/O error
+   */
+  static void writeError(final Writer out, final String message) throws IOException {
+    out.write(STATUS_ERROR + ' ' + escape(String.valueOf(message)) + '\n');
+  }
+
+  /**
+   * Writes a successful reply with a command line.
+   *
+   * @param out the output
+   * @param cmd the command line
+   * @throws IOException on I/O error
+   */
+  static void writeCommandLine(final Writer out, final CommandLine cmd) throws IOException {
+    final List<Parameter> parameters = cmd.getParameters();
+    final List<String> remArgs = cmd.getRemArgs();
+    int numLines = parameters.size() + remArgs.size();
+    for (Parameter parameter : parameters) {
+      numLines += parameter.getNumSubParameters() + parameter.getNumKwSubParameters();
+    }
+    out.write(STATUS_OK + ' ' + numLines + '\n');
+    for (Parameter parameter : parameters) {
+      out.write("P\t" + escape(parameter.getOption().getName()) + '\n');
+      for (SubParameter subParameter : parameter.getSubParameters()) {
+        out.write("S\t" + escape(subParameter.getAsString()) + '\n');
+      }
+      for (Map.Entry<String, SubParameter> entry : parameter.getKwSubParameters().entrySet()) {
+        out.write("K\t" + entry.getKey() + '\t' + escape(entry.getValue().getAsString()) + '\n');
+      }
+    }
+    for (String arg : remArgs) {
+      out.write("R\t" + escape(arg) + '\n');
+    }
+  }
+
+  // no instances
+  private TextFormat() {
+  }
+}
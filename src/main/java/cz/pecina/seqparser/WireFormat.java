@@ -0,0 +1,182 @@
+/* WireFormat.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary format of the messages exchanged by {@link ParseServer} and {@link ParseClient}.
+ *
+ * <p>A connection starts with the client sending the token of the server and the server replying with a status
+ * byte, followed by the error message if the token is wrong. As the token is short, the connection starts with
+ * a zero byte, unlike one of the text format (see {@link TextFormat}). A request is an argument vector: the number of
+ * arguments followed by the arguments. A reply is a status byte followed either by the error message, or by
+ * the parsed command line encoded by {@link CommandLineCodec}, preceded by its length. Strings are written as
+ * their length in bytes followed by their UTF-8 encoding.
+ *
+ * <p>The counts and lengths read are checked against the limits of the reader before anything is allocated,
+ * so a peer cannot make the reader allocate more than the size of the message it is willing to accept.
+ *
+ * @author Tomáš Pecina
+ * @version 1.0.0
+ */
+final class WireFormat {
+
+  /** Status of a successful reply. */
+  static final byte STATUS_OK = 0;
+
+  /** Status of a reply reporting a parsing error. */
+  static final byte STATUS_ERROR = 1;
+
+  /** The default maximum size of a message in bytes. */
+  static final int DEFAULT_MAX_MESSAGE_SIZE = 1 << 24;
+
+  /** The maximum number of UTF-8 bytes encoding a character. */
+  static final int MAX_BYTES_PER_CHAR = 3;
+
+  // reads a count, which must not exceed the limit
+  private static int readCount(final DataInput in, final long limit) throws IOException {
+    final int count = in.readInt();
+    if (count < 0) {
+      throw new IOException("Corrupt message");
+    }
+    if (count > limit) {
+      throw new IOException("Message too large");
+    }
+    return count;
+  }
+
+  // reads the UTF-8 encoding of a string, whose length is already checked
+  private static String readUtf8(final DataInput in, final int len) throws IOException {
+    final byte[] bytes = new byte[len];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a string.
+   *
+   * @param out the output
+   * @param str the string
+   * @throws IOException on I/O error
+   */
+  static void writeString(final DataOutput out, final String str) throws IOException {
+    final byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string.
+   *
+   * @param in the input
+   * @param maxSize the maximum length of the string in bytes
+   * @return the string
+   * @throws IOException on I/O error or if the string is too long
+   */
+  static String readString(final DataInput in, final int maxSize) throws IOException {
+    return readUtf8(in, readCount(in, maxSize));
+  }
+
+  /**
+   * Writes an argument vector.
+   *
+   * @param out the output
+   * @param args the arguments
+   * @throws IOException on I/O error
+   */
+  static void writeArgs(final DataOutput out, final String[] args) throws IOException {
+    out.writeInt(args.length);
+    for (String arg : args) {
+      writeString(out, arg);
+    }
+  }
+
+  /**
+   * Reads an argument vector. The number of arguments and the length of each argument are checked against the
+   * limits, and all of them against the bytes remaining of the maximum size, as each argument takes at least
+   * the bytes of its length.
+   *
+   * @param in the input
+   * @param limits the limits of the number and length of the arguments, or <code>null</code> if none
+   * @param maxSize the maximum size of the argument vector in bytes
+   * @return the arguments
+   * @throws IOException on I/O error or if the argument vector exceeds the limits
+   */
+  static String[] readArgs(final DataInput in, final ParseLimits limits, final int maxSize) throws IOException {
+    final int maxArgs = (limits == null) ? ParseLimits.UNLIMITED : limits.getMaxArgs();
+    final int maxArgLength = (limits == null) ? ParseLimits.UNLIMITED : limits.getMaxArgLength();
+    long remaining = maxSize - Integer.BYTES;
+    final String[] args = new String[readCount(in, Math.min(maxArgs, remaining / Integer.BYTES))];
+    remaining -= (long) args.length * Integer.BYTES;
+    final long maxArgSize = (long) maxArgLength * MAX_BYTES_PER_CHAR;
+    for (int i = 0; i < args.length; i++) {
+      final int len = readCount(in, Math.min(maxArgSize, remaining));
+      remaining -= len;
+      args[i] = readUtf8(in, len);
+    }
+    return args;
+  }
+
+  /**
+   * Writes a command line, encoded by {@link CommandLineCodec}.
+   *
+   * @param out the output
+   * @param options the options the command line was parsed against
+   * @param cmd the command line
+   * @throws IOException on I/O error
+   */
+  static void writeCommandLine(final DataOutput out, final Options options, final CommandLine cmd)
+      throws IOException {
+    final byte[] bytes = CommandLineCodec.encode(options, cmd);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a command line, encoded by {@link CommandLineCodec}. The values are not checked again.
+   *
+   * @param in the input
+   * @param options the options the command line was parsed against
+   * @param maxSize the maximum size of the encoded command line in bytes
+   * @return the command line
+   * @throws IOException on I/O error, if the message is too large or if it does not match the options
+   */
+  static CommandLine readCommandLine(final DataInput in, final Options options, final int maxSize)
+      throws IOException {
+    final byte[] bytes = new byte[readCount(in, maxSize)];
+    in.readFully(bytes);
+    try {
+      return CommandLineCodec.decode(options, bytes);
+    } catch (final ParseException exception) {
+      throw new IOException("Message does not match the options", exception);
+    }
+  }
+
+  // no instances
+  private WireFormat() {
+  }
+}
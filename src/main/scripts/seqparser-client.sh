@@ -0,0 +1,63 @@
+#!/bin/bash
+#
+# seqparser-client.sh
+#
+# Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+#
+# This file is part of cz.pecina.seqparser, a sequential command-line parser.
+#
+# This application is free software: you can redistribute it and/or
+# modify it under the terms of the GNU Affero General Public License as
+# published by the Free Software Foundation, either version 3 of the
+# License, or (at your option) any later version.
+#
+# This application is distributed in the hope that it will be useful,
+# but WITHOUT ANY WARRANTY; without even the implied warranty of
+# MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+# GNU Affero General Public License for more details.
+#
+# You should have received a copy of the GNU Affero General Public License
+# along with this program.  If not, see <http://www.gnu.org/licenses/>.
+#
+# The source code is available from <https://github.com/tompecina/seqparser>.
+#
+# Thin client of the parse daemon (cz.pecina.seqparser.ParseServer), using its text protocol.
+#
+# Usage: seqparser-client.sh PORT TOKEN COMMAND-STRING...
+#
+# The command strings are parsed in turn over one connection. For each, the lines of the parsed command line
+# are written to the standard output, as sent by the server: the kind (P, S, K or R), the option name,
+# the keyword or the value, separated by tabs. A parsing error is written to the standard error and makes
+# the script exit with status 1; a connection or authentication failure makes it exit with status 2.
+
+port=$1
+token=$2
+shift 2
+
+exec 3<>"/dev/tcp/127.0.0.1/$port" || exit 2
+printf '%s\n' "$token" >&3
+IFS= read -r reply <&3 || exit 2
+if [ "$reply" != OK ]; then
+  printf '%s\n' "${reply#ERROR }" >&2
+  exit 2
+fi
+
+status=0
+for request in "$@"; do
+  printf '%s\n' "$request" >&3
+  IFS= read -r reply <&3 || exit 2
+  case $reply in
+    "OK "*)
+      for ((i = 0; i < ${reply#OK }; i++)); do
+        IFS= read -r line <&3 || exit 2
+        printf '%s\n' "$line"
+      done
+      ;;
+    *)
+      printf '%s\n' "${reply#ERROR }" >&2
+      status=1
+      ;;
+  esac
+done
+exec 3>&-
+exit $status
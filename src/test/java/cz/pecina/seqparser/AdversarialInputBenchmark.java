@@ -0,0 +1,112 @@
+/* AdversarialInputBenchmark.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing of pathological values, built of quotes, escapes, equal signs and keyword-like prefixes,
+ * at growing lengths. The time per character should stay constant; {@link TestSeqParser#testLinearWork()}
+ * checks the number of values parsed from the same inputs as part of the build.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AdversarialInputBenchmark {
+
+  @Param({"quotes", "escapes", "equals", "keyword", "quoted", "separators"})
+  private String input;
+
+  @Param({"1024", "16384", "262144"})
+  private int length;
+
+  private Options options;
+  private SeqParser parser;
+  private String[] args;
+
+  @Setup
+  public void setUp() throws ParseException {
+    final String unit;
+    final String tail;
+    switch (input) {
+      case "quotes":
+        unit = "\"";
+        tail = "'";
+        break;
+      case "escapes":
+        unit = "\\";
+        tail = "";
+        break;
+      case "equals":
+        unit = "=";
+        tail = "";
+        break;
+      case "keyword":
+        unit = "a-";
+        tail = "=";
+        break;
+      case "quoted":
+        unit = "k=\"";
+        tail = "\"'";
+        break;
+      default:
+        unit = ",";
+        tail = "";
+        break;
+    }
+    final StringBuilder value = new StringBuilder();
+    while (value.length() < length) {
+      value.append(unit);
+    }
+    args = new String[] {"-a", value.append(tail).toString()};
+    options = Options.builder()
+      .addOption("a", "alpha", 0, ParseLimits.UNLIMITED)
+      .addSubOption(ParameterType.String)
+      .addKwSubOption("k", ParameterType.String)
+      .build();
+    parser = new SeqParser();
+  }
+
+  @Benchmark
+  public Object parse() {
+    try {
+      return parser.parse(options, args, false);
+    } catch (ParseException exception) {
+      return exception;
+    }
+  }
+}
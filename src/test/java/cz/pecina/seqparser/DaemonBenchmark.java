@@ -0,0 +1,142 @@
+/* DaemonBenchmark.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building the options and parsing in-process, as a freshly started tool does, with delegating
+ * to a warm {@link ParseServer}. The cost of starting the JVM itself comes on top of the former, so whole
+ * processes are compared as well: a cold JVM parsing the arguments, and the thin shell client of the text
+ * protocol, <code>src/main/scripts/seqparser-client.sh</code>, which must be run from the project directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DaemonBenchmark {
+
+  private static final String[] ARGS = {
+    "-i", "in.txt", "--output", "out.txt,mode=append", "-v", "--level", "3", "--tag", "a,b,c,d", "--", "x", "y"
+  };
+
+  private static final int BUFFER_SIZE = 1024;
+
+  private ParseServer server;
+  private ParseClient client;
+  private List<String> coldCommand;
+  private List<String> thinCommand;
+
+  static Options buildOptions() throws ParseException {
+    return Options.builder()
+      .addOption("i", "input", 1)
+      .addSubOption(ParameterType.String)
+      .addOption("o", "output", 1)
+      .addSubOption(ParameterType.String)
+      .addKwSubOption("mode", ParameterType.String)
+      .addOption("v", "verbose")
+      .addOption("l", "level", 1)
+      .addSubOption(ParameterType.IntegerRange(0, 9))
+      .addOption("t", "tag", 1, 100)
+      .addSubOption(ParameterType.String)
+      .build();
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, ParseException {
+    server = new ParseServer(new SeqParser(), buildOptions(), false, 0).start();
+    client = new ParseClient(buildOptions(), server.getPort(), server.getToken());
+    coldCommand = new ArrayList<>(Arrays.asList(System.getProperty("java.home") + File.separator + "bin"
+        + File.separator + "java", "-cp", System.getProperty("java.class.path"), DaemonBenchmark.class.getName()));
+    coldCommand.addAll(Arrays.asList(ARGS));
+    thinCommand = Arrays.asList("bash", "src/main/scripts/seqparser-client.sh", Integer.toString(server.getPort()),
+        server.getToken(), String.join(" ", ARGS));
+  }
+
+  // runs a process, failing unless it succeeds, and returns the length of its output
+  private static int run(final List<String> command) throws IOException, InterruptedException {
+    final Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    int len = 0;
+    try (InputStream in = process.getInputStream()) {
+      final byte[] buf = new byte[BUFFER_SIZE];
+      for (int n; (n = in.read(buf)) >= 0; ) {
+        len += n;
+      }
+    }
+    if (process.waitFor() != 0) {
+      throw new IllegalStateException("Process failed: " + command.get(1));
+    }
+    return len;
+  }
+
+  // the cold process, building the options and parsing the arguments in a fresh JVM
+  public static void main(final String[] args) throws ParseException {
+    System.out.println(new SeqParser().parse(buildOptions(), args, false).getParameters().size());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    client.close();
+    server.close();
+  }
+
+  @Benchmark
+  public CommandLine cold() throws ParseException {
+    return new SeqParser().parse(buildOptions(), ARGS, false);
+  }
+
+  @Benchmark
+  public CommandLine daemon() throws IOException, ParseException {
+    return client.parse(ARGS);
+  }
+
+  @Benchmark
+  public int coldProcess() throws IOException, InterruptedException {
+    return run(coldCommand);
+  }
+
+  @Benchmark
+  public int thinProcess() throws IOException, InterruptedException {
+    return run(thinCommand);
+  }
+}
@@ -0,0 +1,163 @@
+/* TestBatchParser.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import junit.framework.TestCase;
+
+public class TestBatchParser extends TestCase {
+
+  private static Options getOptions() throws ParseException {
+    return Options.builder()
+      .addOption("a", "alpha", 1)
+      .addSubOption(ParameterType.Integer)
+      .addOption("b", "beta", 0, 2)
+      .addSubOption(ParameterType.String)
+      .build();
+  }
+
+  public void testToString() {
+    try {
+      assertEquals("BatchParser", new BatchParser(new SeqParser(), getOptions(), false).toString());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testSettings() {
+    try {
+      BatchParser p = new BatchParser(new SeqParser(), getOptions(), false);
+      assertTrue(p.getThreads() > 0);
+      assertEquals(3, p.setThreads(3).getThreads());
+      assertEquals(5, p.setChunkSize(5).getChunkSize());
+      try {
+        p.setThreads(0);
+        fail();
+      } catch (IllegalArgumentException expected) { }
+      try {
+        p.setChunkSize(0);
+        fail();
+      } catch (IllegalArgumentException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testRun() {
+    try {
+      String in = "-a 1 --beta \"x y\",z\n"
+          + "-a x\n"
+          + "\n"
+          + "-b -c\n";
+      StringWriter out = new StringWriter();
+      long errors = new BatchParser(new SeqParser(), getOptions(), false)
+          .setChunkSize(1)
+          .setThreads(2)
+          .run(new BufferedReader(new StringReader(in)), out);
+      assertEquals(2, errors);
+      String[] lines = out.toString().split("\n");
+      assertEquals(4, lines.length);
+      assertEquals("1\tOK\talpha beta", lines[0]);
+      assertTrue(lines[1].startsWith("2\tERROR\t"));
+      assertEquals("3\tOK\t", lines[2]);
+      assertTrue(lines[3].startsWith("4\tERROR\t"));
+    } catch (Exception e) {
+      fail();
+    }
+  }
+
+  public void testEscape() {
+    try {
+      String in = "-a \"1\t2\"\n"
+          + "-b \"x\ty\\\\z\"\n";
+      StringWriter out = new StringWriter();
+      long errors = new BatchParser(new SeqParser(), getOptions(), false)
+          .setFormatter(c -> c.getParameters().get(0).getSubParameter(0).getAsString() + "\r\n")
+          .run(new BufferedReader(new StringReader(in)), out);
+      assertEquals(1, errors);
+      String[] lines = out.toString().split("\n");
+      assertEquals(2, lines.length);
+      assertEquals(3, lines[0].split("\t").length);
+      assertTrue(lines[0].startsWith("1\tERROR\t"));
+      assertTrue(lines[0].contains("1\\t2"));
+      assertEquals("2\tOK\tx\\ty\\\\z\\r\\n", lines[1]);
+    } catch (Exception e) {
+      fail();
+    }
+  }
+
+  public void testOrder() {
+    try {
+      StringBuilder in = new StringBuilder();
+      int n = 10000;
+      for (int i = 0; i < n; i++) {
+        in.append("-b ").append(i).append('\n');
+      }
+      StringWriter out = new StringWriter();
+      long errors = new BatchParser(new SeqParser(), getOptions(), false)
+          .setChunkSize(7)
+          .setThreads(4)
+          .setFormatter(c -> c.getParameters().get(0).getSubParameter(0).getAsString())
+          .run(new BufferedReader(new StringReader(in.toString())), out);
+      assertEquals(0, errors);
+      String[] lines = out.toString().split("\n");
+      assertEquals(n, lines.length);
+      for (int i = 0; i < n; i++) {
+        assertEquals((i + 1) + "\tOK\t" + i, lines[i]);
+      }
+    } catch (Exception e) {
+      fail();
+    }
+  }
+
+  public void testWriteError() {
+    try {
+      Writer out = new Writer() {
+          @Override
+          public void write(char[] cbuf, int off, int len) throws IOException {
+            throw new IOException();
+          }
+          @Override
+          public void flush() { }
+          @Override
+          public void close() { }
+        };
+      StringBuilder in = new StringBuilder();
+      for (int i = 0; i < 1000; i++) {
+        in.append("-b\n");
+      }
+      new BatchParser(new SeqParser(), getOptions(), false)
+          .setChunkSize(1)
+          .setThreads(1)
+          .run(new BufferedReader(new StringReader(in.toString())), out);
+      fail();
+    } catch (IOException expected) {
+    } catch (Exception e) {
+      fail();
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/* TestCharStore.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import junit.framework.TestCase;
+
+public class TestCharStore extends TestCase {
+
+  private static void checkStore(final CharStore s) {
+    String[] strs = {"", "a", "bc", "", "def", "ř "};
+    int[] offsets = new int[strs.length];
+    for (int i = 0; i < strs.length; i++) {
+      offsets[i] = s.append(strs[i]);
+    }
+    for (int i = 0; i < strs.length; i++) {
+      String t = strs[i];
+      assertEquals(t, s.getString(offsets[i], t.length()));
+      assertEquals(t, s.view(offsets[i], t.length()).toString());
+      assertTrue(t, s.equals(offsets[i], t.length(), t));
+      assertFalse(t, s.equals(offsets[i], t.length(), t + "x"));
+      for (int j = 0; j < t.length(); j++) {
+        assertEquals(t.charAt(j), s.charAt(offsets[i], j));
+      }
+    }
+  }
+
+  public void testHeap() {
+    checkStore(new CharStore.Heap(1));
+  }
+
+  public void testDirect() {
+    checkStore(new CharStore.Direct());
+  }
+
+  public void testDirectChunks() {
+    CharStore s = new CharStore.Direct();
+    StringBuilder b = new StringBuilder();
+    for (int i = 0; i < 700000; i++) {
+      b.append((char) ('a' + (i % 26)));
+    }
+    String t = b.toString();
+    String u = t + t + t;
+    int o1 = s.append(t);
+    int o2 = s.append(t);
+    int o3 = s.append(u);
+    int o4 = s.append("x");
+    assertTrue(o1 != o2);
+    assertEquals(t, s.getString(o1, t.length()));
+    assertEquals(t, s.getString(o2, t.length()));
+    assertEquals(u, s.getString(o3, u.length()));
+    assertEquals("x", s.getString(o4, 1));
+  }
+
+  private static long getDirectMemoryUsed() {
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (pool.getName().equals("direct")) {
+        return pool.getMemoryUsed();
+      }
+    }
+    return -1;
+  }
+
+  public void testRelease() {
+    long before = getDirectMemoryUsed();
+    CharStore s = new CharStore.Direct();
+    int o = s.append("abc");
+    assertTrue(getDirectMemoryUsed() - before < 64 * 1024);
+    for (int i = 0; i < 100; i++) {
+      s.append("0123456789012345678901234567890123456789");
+    }
+    CharSequence v = s.view(o, 3);
+    assertEquals("bc", v.subSequence(1, 3).toString());
+    assertTrue(getDirectMemoryUsed() > before);
+    s.release();
+    assertEquals(before, getDirectMemoryUsed());
+    try {
+      v.charAt(0);
+      fail();
+    } catch (IllegalStateException expected) { }
+    try {
+      s.getString(o, 3);
+      fail();
+    } catch (IllegalStateException expected) { }
+    s.release();
+  }
+
+  public void testConcurrentRelease() throws InterruptedException {
+    for (int round = 0; round < 20; round++) {
+      final CharStore s = new CharStore.Direct();
+      final CharSequence v = s.view(s.append("abcdefgh"), 8);
+      final Throwable[] failure = new Throwable[1];
+      final Thread reader = new Thread(() -> {
+        try {
+          while (true) {
+            for (int i = 0; i < v.length(); i++) {
+              assertEquals((char) ('a' + i), v.charAt(i));
+            }
+          }
+        } catch (IllegalStateException expected) {
+        } catch (Throwable t) {
+          failure[0] = t;
+        }
+      });
+      reader.start();
+      Thread.sleep(1);
+      s.release();
+      reader.join();
+      assertNull(failure[0]);
+    }
+  }
+}
@@ -49,4 +49,50 @@ public class TestCommandLine extends TestCase {
       assertEquals(1, c.getRemArgs().size());
       assertSame(a, c.getRemArgs().get(0));
   }
+
+  public void testRemArgsView() {
+    CommandLine c = new CommandLine();
+    String[] a = {"a", "b", "c"};
+    c.addRemArgs(a, 1);
+    assertEquals(2, c.getRemArgs().size());
+    assertSame(a[1], c.getRemArgs().get(0));
+    a[2] = "d";
+    assertEquals("d", c.getRemArgs().get(1));
+    try {
+      c.getRemArgs().add("e");
+      fail();
+    } catch (UnsupportedOperationException expected) { }
+    c.addRemArg("e");
+    assertEquals(3, c.getRemArgs().size());
+    assertEquals("e", c.getRemArgs().get(2));
+    c.addRemArgs(a, 0);
+    assertEquals(6, c.getRemArgs().size());
+  }
+
+  public void testFreeze() {
+    try {
+      CommandLine c = new CommandLine();
+      Parameter p = new Parameter(new Option("a", "b"));
+      c.addParameter(p);
+      String[] a = {"a", "b"};
+      c.addRemArgs(a, 0);
+      assertSame(c, c.freeze());
+      a[0] = "c";
+      assertEquals("a", c.getRemArgs().get(0));
+      try {
+        c.getParameters().clear();
+        fail();
+      } catch (UnsupportedOperationException expected) { }
+      try {
+        p.getSubParameters().clear();
+        fail();
+      } catch (UnsupportedOperationException expected) { }
+      try {
+        p.getKwSubParameters().clear();
+        fail();
+      } catch (UnsupportedOperationException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
 }
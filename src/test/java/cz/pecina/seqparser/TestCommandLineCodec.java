@@ -0,0 +1,169 @@
+/* TestCommandLineCodec.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+public class TestCommandLineCodec extends TestCase {
+
+  private static Options getOptions() throws ParseException {
+    return Options.builder()
+      .addOption("a", "alpha", 0, 10)
+      .addSubOption(ParameterType.String)
+      .addSubOption(ParameterType.Integer)
+      .addKwSubOption("k", ParameterType.String)
+      .addKwSubOption("n", ParameterType.Integer)
+      .addOption("b", "beta")
+      .build();
+  }
+
+  public void testTyped() {
+    try {
+      Options o = Options.builder()
+        .addOption("a", "alpha", 0, 10)
+        .addSubOption(ParameterType.Long)
+        .addKwSubOption("s", ParameterType.ByteSize)
+        .addKwSubOption("t", ParameterType.Duration)
+        .addKwSubOption("d", ParameterType.Double)
+        .addKwSubOption("f", ParameterType.Float)
+        .addKwSubOption("n", ParameterType.Integer)
+        .build();
+      String[] a = {"-a", "-9223372036854775808,016,s=64M,t=90s,d=-0.0,f=0.1,n=2147483647"};
+      CommandLine c = new SeqParser().parse(o, a, false);
+      byte[] d = CommandLineCodec.encode(o, c);
+      Parameter p = CommandLineCodec.decode(o, d).getParameters().get(0);
+      assertEquals(Long.MIN_VALUE, p.getSubParameter(0).getAsLong());
+      assertEquals(c.getParameters().get(0).getSubParameter(1).getAsLong(), p.getSubParameter(1).getAsLong());
+      assertEquals("016", p.getSubParameter(1).getAsString());
+      assertEquals(64L << 20, p.getKwSubParameter("s").getAsLong());
+      assertEquals("64M", p.getKwSubParameter("s").getAsString());
+      assertEquals(90_000_000_000L, p.getKwSubParameter("t").getAsLong());
+      assertEquals(java.time.Duration.ofSeconds(90), p.getKwSubParameter("t").get());
+      assertEquals(Double.doubleToRawLongBits(-0.0), Double.doubleToRawLongBits(p.getKwSubParameter("d").getAsDouble()));
+      assertEquals(0.1f, p.getKwSubParameter("f").getAsFloat());
+      assertEquals("0.1", p.getKwSubParameter("f").getAsString());
+      assertEquals(Integer.MAX_VALUE, p.getKwSubParameter("n").getAsInt());
+      assertEquals("2147483647", p.getKwSubParameter("n").getAsString());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testNotParsed() {
+    try {
+      final int[] calls = {0};
+      IntParameterType t = new IntParameterType() {
+        @Override
+        public int parseInt(final java.lang.String str) {
+          calls[0]++;
+          return java.lang.Integer.parseInt(str) * 2;
+        }
+      };
+      Options o = Options.builder().addOption("a", "alpha", 0, 10).addSubOption(new SubOption(t)).build();
+      CommandLine c = new SeqParser().parse(o, new String[] {"-a", "21,-5"}, false);
+      Parameter p = CommandLineCodec.decode(o, CommandLineCodec.encode(o, c)).getParameters().get(0);
+      int n = calls[0];
+      assertEquals(42, p.getSubParameter(0).getAsInt());
+      assertEquals(-10, p.getSubParameter(1).getAsInt());
+      assertEquals("21", p.getSubParameter(0).getAsString());
+      assertEquals(n, calls[0]);
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testRoundTrip() {
+    try {
+      Options o = getOptions();
+      CommandLine c = new SeqParser().parse(o,
+          new String[] {"-a", "x,-17,42,k=é,n=007", "--beta", "-a", "", "-z", "s", "t"}, true);
+      byte[] d = CommandLineCodec.encode(o, c);
+      CommandLine r = CommandLineCodec.decode(getOptions(), d);
+      assertEquals(3, r.getParameters().size());
+      Parameter p = r.getParameters().get(0);
+      assertEquals("a", p.getOption().getShortOpt());
+      assertEquals(3, p.getNumSubParameters());
+      assertEquals("x", p.getSubParameter(0).getAsString());
+      assertEquals(-17, p.getSubParameter(1).getAsInt());
+      assertEquals(42, p.getSubParameter(2).getAsInt());
+      assertEquals("é", p.getKwSubParameter("k").getAsString());
+      assertEquals("007", p.getKwSubParameter("n").getAsString());
+      assertEquals("b", r.getParameters().get(1).getOption().getShortOpt());
+      assertEquals("", r.getParameters().get(2).getSubParameter(0).getAsString());
+      assertEquals(Arrays.asList("-z", "s", "t"), r.getRemArgs());
+      assertTrue(d.length < 64);
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testForeignOption() {
+    try {
+      CommandLine c = new SeqParser().parse(getOptions(), new String[] {"-b"}, false);
+      CommandLineCodec.encode(getOptions(), c);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testMismatch() {
+    try {
+      Options o = getOptions();
+      byte[] d = CommandLineCodec.encode(o, new SeqParser().parse(o, new String[] {"-b"}, false));
+      try {
+        CommandLineCodec.decode(new Options(), d);
+        fail();
+      } catch (ParseException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testCorrupt() {
+    try {
+      Options o = getOptions();
+      byte[] d = CommandLineCodec.encode(o, new SeqParser().parse(o, new String[] {"-a", "x,1,k=v", "-z", "r"}, true));
+      for (int len = 0; len < d.length; len++) {
+        try {
+          CommandLineCodec.decode(o, Arrays.copyOf(d, len));
+          fail();
+        } catch (ParseException expected) { }
+      }
+      try {
+        CommandLineCodec.decode(o, Arrays.copyOf(d, d.length + 1));
+        fail();
+      } catch (ParseException expected) { }
+      byte[] v = d.clone();
+      v[0]++;
+      try {
+        CommandLineCodec.decode(o, v);
+        fail();
+      } catch (ParseException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+}
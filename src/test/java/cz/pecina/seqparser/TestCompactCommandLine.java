@@ -0,0 +1,188 @@
+/* TestCompactCommandLine.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import junit.framework.TestCase;
+
+public class TestCompactCommandLine extends TestCase {
+
+  private static Options getOptions() throws ParseException {
+    return Options.builder()
+      .addOption("a", "alpha", 0, 10)
+      .addSubOption(ParameterType.String)
+      .addSubOption(ParameterType.Integer)
+      .addKwSubOption("k", ParameterType.String)
+      .addKwSubOption("n", ParameterType.Integer)
+      .addOption("b", "beta")
+      .build();
+  }
+
+  public void testToString() {
+    try {
+      assertEquals("CompactCommandLine", new CompactCommandLine(getOptions(), false).toString());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testAccess() {
+    try {
+      Options o = getOptions();
+      CompactCommandLine c = new SeqParser().parseCompact(o,
+          new String[] {"-a", "x,1,2,k=v,n=3,k=w", "--beta", "--alpha", "-b", "-z", "s"}, true);
+      assertSame(o, c.getOptions());
+      assertEquals(4, c.getNumParameters());
+      assertEquals(0, c.getOrdinal(0));
+      assertEquals(1, c.getOrdinal(1));
+      assertSame(o.getOptionShort("a"), c.getOption(2));
+      assertSame(o.getOptionShort("b"), c.getOption(3));
+      assertEquals(3, c.getNumSubParameters(0));
+      assertEquals("x", c.getSubParameterAsString(0, 0));
+      assertEquals("2", c.getSubParameterAsString(0, 2));
+      assertEquals(2, c.getNumKwSubParameters(0));
+      assertTrue(c.hasKwSubParameter(0, "k"));
+      assertFalse(c.hasKwSubParameter(0, "m"));
+      assertEquals("w", c.getKwSubParameterAsString(0, "k"));
+      assertEquals("3", c.getKwSubParameterAsString(0, "n"));
+      assertNull(c.getKwSubParameterAsString(0, "m"));
+      assertEquals(0, c.getNumSubParameters(1));
+      assertEquals(0, c.getNumKwSubParameters(2));
+      try {
+        c.getSubParameterAsString(0, 3);
+        fail();
+      } catch (IndexOutOfBoundsException expected) { }
+      try {
+        c.getOrdinal(4);
+        fail();
+      } catch (IndexOutOfBoundsException expected) { }
+      assertEquals(2, c.getRemArgs().size());
+      assertEquals("-z", c.getRemArgs().get(0));
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testParameters() {
+    try {
+      Options o = getOptions();
+      CompactCommandLine c = new SeqParser().parseCompact(o, new String[] {"-a", "x,1,k=v", "-b"}, false);
+      Parameter p = c.getParameter(0);
+      assertSame(o.getOptionShort("a"), p.getOption());
+      assertEquals(2, p.getNumSubParameters());
+      assertSame(ParameterType.String, p.getSubParameter(0).getSubOption());
+      assertSame(ParameterType.Integer, p.getSubParameter(1).getSubOption());
+      assertEquals(1, p.getSubParameter(1).getAsInt());
+      assertEquals("v", p.getKwSubParameter("k").getAsString());
+      assertEquals(2, c.getParameters().size());
+      assertSame(o.getOptionShort("b"), c.getParameters().get(1).getOption());
+      CommandLine l = c.toCommandLine();
+      assertEquals(2, l.getParameters().size());
+      assertEquals("x", l.getParameters().get(0).getSubParameter(0).getAsString());
+      assertTrue(l.getRemArgs().isEmpty());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testFlyweight() {
+    try {
+      Options o = getOptions();
+      CompactCommandLine c = new SeqParser().parseCompact(o, new String[] {"-a", "x,1,k=v,n=3,k=w"}, false, true);
+      Parameter p = c.getParameter(0);
+      assertEquals(2, p.getSubParameters().size());
+      assertEquals("x", p.getSubParameters().get(0).getAsString());
+      assertEquals(2, p.getNumKwSubParameters());
+      assertEquals("w", p.getKwSubParameter("k").getAsString());
+      assertTrue(p.hasKwSubParameter("n"));
+      assertFalse(p.hasKwSubParameter("m"));
+      assertNull(p.getKwSubParameter("m"));
+      assertEquals(3, p.getKwSubParameters().get("n").getAsInt());
+      CommandLine l = c.toCommandLine();
+      c.close();
+      try {
+        p.getSubParameter(0);
+        fail();
+      } catch (IllegalStateException expected) { }
+      assertEquals(2, p.getKwSubParameters().size());  // from the offsets, without reading the values
+      assertEquals("w", l.getParameters().get(0).getKwSubParameter("k").getAsString());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testGrowth() {
+    try {
+      Options o = getOptions();
+      int n = 1000;
+      String[] args = new String[2 * n];
+      for (int i = 0; i < n; i++) {
+        args[2 * i] = "-a";
+        args[2 * i + 1] = "v" + i + "," + i + ",k=" + i;
+      }
+      CompactCommandLine c = new SeqParser().parseCompact(o, args, false);
+      assertEquals(n, c.getNumParameters());
+      for (int i = 0; i < n; i++) {
+        assertEquals("v" + i, c.getSubParameterAsString(i, 0));
+        assertEquals(String.valueOf(i), c.getSubParameterAsString(i, 1));
+        assertEquals(String.valueOf(i), c.getKwSubParameterAsString(i, "k"));
+      }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testDirect() {
+    try {
+      Options o = getOptions();
+      String[] args = {"-a", "x,1,k=v", "-a", "y,n=2"};
+      try (CompactCommandLine c = new SeqParser().parseCompact(o, args, false, true)) {
+        assertEquals(2, c.getNumParameters());
+        assertEquals("x", c.getSubParameterAsString(0, 0));
+        assertEquals("1", c.getSubParameterAsCharSequence(0, 1).toString());
+        assertEquals("v", c.getKwSubParameterAsString(0, "k"));
+        assertEquals("2", c.getKwSubParameterAsCharSequence(1, "n").toString());
+        assertNull(c.getKwSubParameterAsCharSequence(1, "k"));
+        assertEquals("y", c.getParameter(1).getSubParameter(0).getAsString());
+      }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testClose() {
+    try {
+      CompactCommandLine c = new SeqParser().parseCompact(getOptions(), new String[] {"-a", "x"}, false, true);
+      assertFalse(c.isClosed());
+      c.close();
+      assertTrue(c.isClosed());
+      assertEquals(1, c.getNumParameters());
+      try {
+        c.getSubParameterAsString(0, 0);
+        fail();
+      } catch (IllegalStateException expected) { }
+      c.close();
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+}
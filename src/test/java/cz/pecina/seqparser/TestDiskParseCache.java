@@ -0,0 +1,265 @@
+/* TestDiskParseCache.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+public class TestDiskParseCache extends TestCase {
+
+  private Path path;
+
+  @Override
+  protected void setUp() throws IOException {
+    path = Files.createTempFile("seqparser", ".cache");
+  }
+
+  @Override
+  protected void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  private static Options getOptions(final int max) throws ParseException {
+    return getOptions(max, ParameterType.Integer);
+  }
+
+  private static Options getOptions(final int max, final SubOption type) throws ParseException {
+    return Options.builder()
+      .addOption("a", "alpha", 0, max)
+      .addSubOption(type)
+      .addKwSubOption("k", ParameterType.String)
+      .addOption("b", "beta")
+      .build();
+  }
+
+  public void testToString() {
+    try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 1024)) {
+      assertEquals("DiskParseCache", c.toString());
+    } catch (IOException e) {
+      fail();
+    }
+  }
+
+  public void testConstructor() {
+    try {
+      new DiskParseCache(new SeqParser(), path, 0, 1024);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    } catch (IOException e) {
+      fail();
+    }
+    try {
+      new DiskParseCache(new SeqParser(), path, 16, Integer.MAX_VALUE);
+      fail();
+    } catch (IllegalArgumentException expected) {
+    } catch (IOException e) {
+      fail();
+    }
+  }
+
+  public void testPersistence() {
+    try {
+      String[] a = {"-a", "1,2,k=x y", "--beta", "-z", "r"};
+      try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 1024)) {
+        c.parse(getOptions(5), a, true);
+        c.parse(getOptions(5), a, true);
+        assertEquals(1, c.getHits());
+        assertEquals(1, c.getMisses());
+        assertEquals(1, c.getSize());
+      }
+      try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 1024)) {
+        Options o = getOptions(5);
+        CommandLine l = c.parse(o, a, true);
+        assertEquals(1, c.getHits());
+        assertEquals(0, c.getMisses());
+        assertEquals(2, l.getParameters().size());
+        assertSame(o.getOptionShort("a"), l.getParameters().get(0).getOption());
+        assertEquals(2, l.getParameters().get(0).getSubParameter(1).getAsInt());
+        assertEquals("x y", l.getParameters().get(0).getKwSubParameter("k").getAsString());
+        assertEquals(Arrays.asList("-z", "r"), l.getRemArgs());
+        c.parse(o, new String[] {"-b"}, false);
+        c.parse(o, new String[] {"-b"}, true);
+        assertEquals(1, c.getHits());
+        assertEquals(2, c.getMisses());
+      }
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testInvalidation() {
+    try {
+      String[] a = {"-a", "1"};
+      try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 1024)) {
+        c.parse(getOptions(5), a, true);
+        c.parse(getOptions(6), a, true);
+        assertEquals(0, c.getHits());
+        assertEquals(2, c.getSize());
+      }
+      try (DiskParseCache c = new DiskParseCache(new SeqParser(';'), path, 16, 1024)) {
+        c.parse(getOptions(5), a, true);
+        assertEquals(0, c.getHits());
+        assertEquals(3, c.getSize());
+      }
+      try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 1024)) {
+        c.parse(getOptions(5), new String[] {"-a", "1", "k=x"}, true);
+        c.parse(getOptions(5, ParameterType.IntegerRange(0, 9)), new String[] {"-a", "1", "k=x"}, true);
+        assertEquals(0, c.getHits());
+        assertEquals(5, c.getSize());
+      }
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testLimits() {
+    try {
+      String[] a = {"-a", "1,2,3"};
+      try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 1024)) {
+        c.parse(getOptions(5), a, true);
+      }
+      SeqParser p = new SeqParser().setLimits(new ParseLimits().setMaxSubParameters(2));
+      try (DiskParseCache c = new DiskParseCache(p, path, 16, 1024)) {
+        try {
+          c.parse(getOptions(5), a, true);
+          fail();
+        } catch (ParseException expected) { }
+        p.setLimits(new ParseLimits());
+        c.parse(getOptions(5), a, true);
+        assertEquals(1, c.getHits());
+        assertEquals(1, c.getMisses());
+      }
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testIncompatible() {
+    try {
+      try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 1024)) {
+        c.parse(getOptions(5), new String[] {"-a", "1"}, true);
+        try {
+          new DiskParseCache(new SeqParser(), path, 32, 1024);
+          fail();
+        } catch (IOException expected) { }
+        try {
+          new DiskParseCache(new SeqParser(), path, 16, 2048);
+          fail();
+        } catch (IOException expected) { }
+        c.parse(getOptions(5), new String[] {"-a", "1"}, true);
+        assertEquals(1, c.getHits());
+      }
+      try (RandomAccessFile f = new RandomAccessFile(path.toFile(), "rw")) {
+        f.writeInt(1);
+      }
+      try {
+        new DiskParseCache(new SeqParser(), path, 16, 1024);
+        fail();
+      } catch (IOException expected) { }
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testChecksum() {
+    try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 1024)) {
+      Options o = getOptions(5);
+      String[] a = {"-a", "1,2,3"};
+      c.parse(o, a, true);
+      try (RandomAccessFile f = new RandomAccessFile(path.toFile(), "rw")) {
+        f.seek(f.length() - 1024);
+        final byte[] data = new byte[1024];
+        f.readFully(data);
+        int end = data.length;
+        while (data[end - 1] == 0) {
+          end--;
+        }
+        f.seek(f.length() - 1024 + end - 1);
+        f.write(data[end - 1] ^ 1);  // corrupts the last byte of the value
+      }
+      assertEquals(Arrays.asList("1", "2", "3"), Arrays.asList(
+          c.parse(o, a, true).getParameters().get(0).getSubParameter(0).getAsString(),
+          c.parse(o, a, true).getParameters().get(0).getSubParameter(1).getAsString(),
+          c.parse(o, a, true).getParameters().get(0).getSubParameter(2).getAsString()));
+      assertEquals(0, c.getHits());
+      c.clear();
+      c.parse(o, a, true);
+      c.parse(o, a, true);
+      assertEquals(1, c.getHits());
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testFull() {
+    try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 4, 1024)) {
+      Options o = getOptions(5);
+      for (int i = 0; i < 5; i++) {
+        c.parse(o, new String[] {"-a", Integer.toString(i)}, true);
+      }
+      assertEquals(3, c.getSize());
+      for (int i = 0; i < 5; i++) {
+        assertEquals(Integer.toString(i),
+            c.parse(o, new String[] {"-a", Integer.toString(i)}, true)
+            .getParameters().get(0).getSubParameter(0).getAsString());
+      }
+      assertEquals(3, c.getHits());
+      c.clear();
+      assertEquals(0, c.getSize());
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+    try {
+      Files.delete(path);
+    } catch (IOException e) {
+      fail();
+    }
+    try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 40)) {
+      Options o = getOptions(5);
+      c.parse(o, new String[] {"-a", "1,2,3,4,5"}, true);
+      assertEquals(0, c.getSize());
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testError() {
+    try (DiskParseCache c = new DiskParseCache(new SeqParser(), path, 16, 1024)) {
+      Options o = getOptions(5);
+      for (int i = 0; i < 2; i++) {
+        try {
+          c.parse(o, new String[] {"-a", "x"}, true);
+          fail();
+        } catch (ParseException expected) { }
+      }
+      assertEquals(0, c.getSize());
+      assertEquals(2, c.getMisses());
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+}
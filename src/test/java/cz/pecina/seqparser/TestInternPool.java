@@ -0,0 +1,73 @@
+/* TestInternPool.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import junit.framework.TestCase;
+
+public class TestInternPool extends TestCase {
+
+  public void testToString() {
+    assertEquals("InternPool", new InternPool(1).toString());
+  }
+
+  public void testConstructor() {
+    assertEquals(1, new InternPool(1).getNumSlots());
+    assertEquals(2, new InternPool(2).getNumSlots());
+    assertEquals(8, new InternPool(5).getNumSlots());
+    assertEquals(8, new InternPool(8).getNumSlots());
+    try {
+      new InternPool(0);
+      fail();
+    } catch (IllegalArgumentException expected) { }
+  }
+
+  public void testIntern() {
+    InternPool p = new InternPool(16);
+    assertEquals(0.0, p.getHitRate());
+    String a = new String("fast");
+    String b = new String("fast");
+    assertSame(a, p.intern(a));
+    assertSame(a, p.intern(b));
+    assertSame(a, p.intern(a));
+    assertEquals(1, p.getHits());
+    assertEquals(1, p.getMisses());
+    assertEquals(0.5, p.getHitRate());
+    assertEquals(InternPool.STRING_OVERHEAD + 8, p.getSavedBytes());
+    p.clear();
+    assertEquals(0, p.getHits());
+    assertEquals(0, p.getMisses());
+    assertEquals(0, p.getSavedBytes());
+    assertSame(b, p.intern(b));
+  }
+
+  public void testBound() {
+    InternPool p = new InternPool(1);
+    String a = new String("a");
+    String b = new String("b");
+    assertSame(a, p.intern(a));
+    assertSame(b, p.intern(b));
+    assertNotSame(a, p.intern(new String("a")));
+    assertEquals(0, p.getHits());
+    assertEquals(3, p.getMisses());
+  }
+}
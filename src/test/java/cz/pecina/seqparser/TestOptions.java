@@ -43,6 +43,141 @@ public class TestOptions extends TestCase {
     }
   }
 
+  public void testOrdinal() {
+    Options o = new Options();
+    try {
+      Option a = new Option("a", null);
+      Option b = new Option(null, "b");
+      o.addOption(a).addOption(b);
+      assertEquals(2, o.getNumOptions());
+      assertSame(a, o.getOption(0));
+      assertSame(b, o.getOption(1));
+      assertEquals(0, o.getOrdinal(a));
+      assertEquals(1, o.getOrdinal(b));
+      assertEquals(-1, o.getOrdinal(new Option("a", null)));
+      try {
+        o.addOption(new Option("a", "c"));
+        fail();
+      } catch (ParseException expected) { }
+      assertEquals(2, o.getNumOptions());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testFingerprint() {
+    try {
+      Options o1 = Options.builder()
+        .addOption("a", "alpha", 0, 2)
+        .addSubOption(ParameterType.Integer)
+        .addKwSubOption("k", ParameterType.String)
+        .build();
+      Options o2 = Options.builder()
+        .addOption("a", "alpha", 0, 2)
+        .addSubOption(ParameterType.Integer)
+        .addKwSubOption("k", ParameterType.String)
+        .build();
+      assertEquals(o1.getFingerprint(), o2.getFingerprint());
+      assertFalse(o1.getFingerprint() == new Options().getFingerprint());
+      assertFalse(o1.getFingerprint() == Options.builder()
+          .addOption("a", "alpha", 0, 3)
+          .addSubOption(ParameterType.Integer)
+          .addKwSubOption("k", ParameterType.String)
+          .build().getFingerprint());
+      assertFalse(o1.getFingerprint() == Options.builder()
+          .addOption("a", "alpha", 0, 2)
+          .addSubOption(ParameterType.String)
+          .addKwSubOption("k", ParameterType.String)
+          .build().getFingerprint());
+      assertFalse(o1.getFingerprint() == Options.builder()
+          .addOption("a", "alpha", 0, 2)
+          .addSubOption(ParameterType.Integer)
+          .addKwSubOption("l", ParameterType.String)
+          .build().getFingerprint());
+      final long f = o1.getFingerprint();
+      o1.addOption(new Option("b", null));
+      assertFalse(f == o1.getFingerprint());
+      final long g = o1.getFingerprint();
+      o1.getOptionShort("a").addSubOption(ParameterType.String);
+      assertFalse(g == o1.getFingerprint());
+      final long h = o1.getFingerprint();
+      o1.getOptionShort("a").addKwSubOption("l", ParameterType.String);
+      assertFalse(h == o1.getFingerprint());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  private static long getFingerprint(final SubOption subOption) throws ParseException {
+    return Options.builder()
+      .addOption("a", "alpha", 1)
+      .addSubOption(subOption)
+      .build().getFingerprint();
+  }
+
+  public void testFingerprintParameters() {
+    try {
+      assertEquals(getFingerprint(ParameterType.IntegerRange(1, 5)),
+          getFingerprint(ParameterType.IntegerRange(1, 5)));
+      assertFalse(getFingerprint(ParameterType.IntegerRange(1, 5))
+          == getFingerprint(ParameterType.IntegerRange(1, 500)));
+      assertFalse(getFingerprint(ParameterType.LongRange(1, 5)) == getFingerprint(ParameterType.ByteSizeRange(1, 5)));
+      assertFalse(getFingerprint(ParameterType.FloatRange(1, 5)) == getFingerprint(ParameterType.DoubleRange(1, 5)));
+      assertFalse(getFingerprint(ParameterType.PosDouble) == getFingerprint(ParameterType.NonNegDouble));
+      assertEquals(getFingerprint(ParameterType.Choice("a", "b")), getFingerprint(ParameterType.Choice("b", "a")));
+      assertFalse(getFingerprint(ParameterType.Choice("a", "b")) == getFingerprint(ParameterType.Choice("a", "c")));
+      assertFalse(getFingerprint(ParameterType.Choice("a,b")) == getFingerprint(ParameterType.Choice("a", "b")));
+      assertFalse(getFingerprint(ParameterType.Regex("a+")) == getFingerprint(ParameterType.Regex("b+")));
+      assertFalse(getFingerprint(ParameterType.Regex("a+"))
+          == getFingerprint(ParameterType.Regex("a+", java.util.regex.Pattern.CASE_INSENSITIVE)));
+      assertEquals(getFingerprint(ParameterType.Integer),
+          getFingerprint(new SubOption(ParameterType.cached(ParameterType.Integer.getType(), 16))));
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testConstraints() {
+    try {
+      Options o = Options.builder()
+        .addOption("a", "alpha")
+        .addOption("b", "beta")
+        .addOption(null, "gamma")
+        .build();
+      long f = o.getFingerprint();
+      assertFalse(o.hasConstraints());
+      assertSame(o, o.addRequires(o.getOptionShort("a"), o.getOptionShort("b")));
+      assertTrue(o.hasConstraints());
+      assertFalse(f == o.getFingerprint());
+      f = o.getFingerprint();
+      o.addExcludes(o.getOptionShort("a"), o.getOptionLong("gamma"));
+      assertFalse(f == o.getFingerprint());
+      o.addGroup(1, 1, o.getOptionShort("b"), o.getOptionLong("gamma"));
+      try {
+        o.addRequires(new Option("x", null), o.getOptionShort("a"));
+        fail();
+      } catch (ParseException expected) { }
+      try {
+        o.addGroup(2, 1, o.getOptionShort("a"));
+        fail();
+      } catch (ParseException expected) { }
+      assertSame(o.getOptionLong("gamma"), o.lookup("--gamma"));
+      assertSame(o.getOptionShort("a"), o.lookup("-a"));
+      for (String s : new String[] {"a", "-x", "--delta", "-"}) {
+        try {
+          o.lookup(s);
+          fail();
+        } catch (ParseException expected) { }
+      }
+      try {
+        Options.builder().addOption("a", null).addRequires("-a", "-b");
+        fail();
+      } catch (ParseException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
   public void testAddOption() {
     Options o;
     Option s, l;
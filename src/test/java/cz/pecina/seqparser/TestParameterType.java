@@ -222,4 +222,449 @@ public class TestParameterType extends TestCase {
       assertFalse(t, ParameterType.DoubleRange(-1.5, 2.5).getType().check(t));
     }
   }
+
+  private static final class CountingType implements ParameterType {
+    int checks;
+    int gets;
+
+    @Override
+    public boolean check(String s) {
+      checks++;
+      return (s != null) && s.startsWith("v");
+    }
+
+    @Override
+    public Object get(String s) {
+      gets++;
+      return (s == null) ? -1 : s.length();
+    }
+  }
+
+  public void testCached() {
+    CountingType t = new CountingType();
+    ParameterType c = ParameterType.cached(t, 16);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(c.check("v1"));
+      assertFalse(c.check("x"));
+      assertEquals(2, c.get("v1"));
+    }
+    assertEquals(2, t.checks);
+    assertEquals(1, t.gets);
+    assertFalse(c.check(null));
+    assertEquals(2, t.checks);
+    assertEquals(-1, c.get(null));
+    assertEquals(-1, c.get(null));
+    assertEquals(3, t.gets);
+    c = ParameterType.cached(t, 1);
+    c.check("v1");
+    c.check("v2");
+    c.check("v1");
+    assertEquals(5, t.checks);
+    try {
+      ParameterType.cached(t, 0);
+      fail();
+    } catch (IllegalArgumentException expected) { }
+  }
+
+  public void testCheckedOnce() {
+    try {
+      CountingType t = new CountingType();
+      Options o = Options.builder()
+        .addOption("a", "alpha", 0, 5)
+        .addSubOption(new SubOption(t))
+        .addKwSubOption("k", new SubOption(t))
+        .build();
+      SeqParser p = new SeqParser();
+      p.parse(o, new String[] {"-a", "v1,v2,k=v3"}, false);
+      assertEquals(3, t.checks);
+      p.parse(o, new String[] {"-a", "v1,v2,k=v3"}, false).getParameters().get(0).getSubParameter(0).get();
+      assertEquals(6, t.checks);
+      assertEquals(1, t.gets);
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  private enum Mode { FAST, SLOW, AUTO }
+
+  public void testChoice() {
+    ParameterType t = ParameterType.Choice("eu", "us", "apac", "").getType();
+    String[] succ = {"eu", "us", "apac", ""};
+    String[] fail = {null, "EU", "e", "eu ", "usa", "ap"};
+    for (String v : succ) {
+      assertTrue(v, t.check(v));
+      assertEquals(v, t.get(new String(v)));
+    }
+    for (String v : fail) {
+      assertFalse(v, t.check(v));
+    }
+    ChoiceType c = (ChoiceType) t;
+    assertTrue(c.indexOf("xapacx", 1, 5) >= 0);
+    assertEquals(-1, c.indexOf("xapacx", 1, 4));
+    try {
+      t.get("x");
+      fail();
+    } catch (IllegalArgumentException expected) { }
+    try {
+      ParameterType.Choice("a", "b", "a");
+      fail();
+    } catch (IllegalArgumentException expected) { }
+    try {
+      ParameterType.Choice();
+      fail();
+    } catch (IllegalArgumentException expected) { }
+  }
+
+  public void testChoiceSpan() {
+    try {
+      Options o = Options.builder()
+        .addOption("r", "region", 0, 3)
+        .addSubOption(ParameterType.Choice("eu", "us"))
+        .addKwSubOption("k", ParameterType.Choice("eu", "us"))
+        .build();
+      CommandLine l = new SeqParser().parse(o, new String[] {"-r", "eu,'us',k=\"eu\",e\\u"}, false);
+      Parameter p = l.getParameters().get(0);
+      assertSame("eu", p.getSubParameter(0).getAsString());
+      assertSame("us", p.getSubParameter(1).getAsString());
+      assertSame("eu", p.getKwSubParameter("k").getAsString());
+      assertEquals("eu", p.getSubParameter(2).getAsString());
+      try {
+        new SeqParser().parse(o, new String[] {"-r", "eu,x"}, false);
+        fail();
+      } catch (ParseException expected) {
+        assertTrue(expected.getMessage().contains("\"x\""));
+      }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testChoiceLarge() {
+    String[] v = new String[1000];
+    for (int i = 0; i < v.length; i++) {
+      v[i] = "value" + i;
+    }
+    ParameterType t = ParameterType.Choice(v).getType();
+    for (int i = 0; i < v.length; i++) {
+      assertTrue(t.check("value" + i));
+    }
+    assertFalse(t.check("value1000"));
+  }
+
+  public void testEnum() {
+    ParameterType t = ParameterType.Enum(Mode.class).getType();
+    for (Mode m : Mode.values()) {
+      assertTrue(t.check(m.name()));
+      assertSame(m, t.get(m.name()));
+    }
+    assertFalse(t.check("fast"));
+    assertFalse(t.check(null));
+  }
+
+  public void testLong() {
+    String[] succ = {"0", "00", "-0", "+6", "42", "9223372036854775807", "-9223372036854775808", "-1"};
+    String[] fail = {null, "", "-", "+", "abc", "0xaa", "1e4", "1.0", "--1", "9223372036854775808",
+        "-9223372036854775809", "99999999999999999999", "1 ", "1k"};
+    for (String t : succ) {
+      assertTrue(t, ParameterType.Long.getType().check(t));
+      assertEquals(t, Long.valueOf(t), ParameterType.Long.getType().get(t));
+    }
+    for (String t : fail) {
+      assertFalse(t, ParameterType.Long.getType().check(t));
+    }
+    try {
+      ParameterType.Long.getType().get("x");
+      fail();
+    } catch (IllegalArgumentException expected) { }
+    for (String t : new String[] {"\u0664\u0662", "-\u0967\u0968", "\uff17"}) {  // Arabic-Indic, Devanagari, fullwidth
+      assertEquals(t, Integer.parseInt(t), ParameterType.Integer.getType().get(t));
+      assertTrue(t, ParameterType.Long.getType().check(t));
+      assertEquals(t, Long.parseLong(t), ParameterType.Long.getType().get(t));
+    }
+    assertEquals(64L << 20, ParameterType.ByteSize.getType().get("\u0666\u0664M"));
+  }
+
+  public void testLongRange() {
+    ParameterType t = ParameterType.LongRange(-5_000_000_000L, 5_000_000_000L).getType();
+    assertTrue(t.check("-5000000000"));
+    assertTrue(t.check("5000000000"));
+    assertFalse(t.check("5000000001"));
+    assertFalse(t.check("-9223372036854775808"));
+    assertTrue(ParameterType.LongRange(Long.MIN_VALUE, 0).getType().check("-9223372036854775808"));
+  }
+
+  public void testByteSize() {
+    ParameterType t = ParameterType.ByteSize.getType();
+    Object[][] succ = {
+      {"0", 0L}, {"512", 512L}, {"512B", 512L}, {"1k", 1024L}, {"1K", 1024L}, {"1KB", 1024L},
+      {"1KiB", 1024L}, {"64M", 64L << 20}, {"2G", 2L << 30}, {"2g", 2L << 30}, {"3T", 3L << 40},
+      {"1P", 1L << 50}, {"7E", 7L << 60}, {"9223372036854775807", Long.MAX_VALUE}};
+    String[] fail = {null, "", "M", "-1", "+1", "1.5M", "1 M", "1X", "1Mb", "1MiBB", "1KIB", "8E",
+        "9223372036854775808", "1Bk", "1b"};
+    for (Object[] v : succ) {
+      assertTrue((String) v[0], t.check((String) v[0]));
+      assertEquals((String) v[0], v[1], t.get((String) v[0]));
+    }
+    for (String v : fail) {
+      assertFalse(v, t.check(v));
+    }
+    ParameterType r = ParameterType.ByteSizeRange(1 << 20, 1 << 30).getType();
+    assertTrue(r.check("1M"));
+    assertTrue(r.check("1G"));
+    assertFalse(r.check("1023K"));
+    assertFalse(r.check("2G"));
+  }
+
+  public void testDuration() {
+    ParameterType t = ParameterType.Duration.getType();
+    Object[][] succ = {
+      {"0s", java.time.Duration.ZERO}, {"7ns", java.time.Duration.ofNanos(7)},
+      {"3us", java.time.Duration.ofNanos(3000)}, {"500ms", java.time.Duration.ofMillis(500)},
+      {"10s", java.time.Duration.ofSeconds(10)}, {"5m", java.time.Duration.ofMinutes(5)},
+      {"2h", java.time.Duration.ofHours(2)}, {"1d", java.time.Duration.ofDays(1)}};
+    String[] fail = {null, "", "5", "s", "-5s", "5 s", "5sec", "5M", "1.5s", "5S", "106752d"};
+    for (Object[] v : succ) {
+      assertTrue((String) v[0], t.check((String) v[0]));
+      assertEquals((String) v[0], v[1], t.get((String) v[0]));
+    }
+    for (String v : fail) {
+      assertFalse(v, t.check(v));
+    }
+    try {
+      ParameterType r = ParameterType.DurationRange(java.time.Duration.ofMillis(100),
+          java.time.Duration.ofMinutes(1)).getType();
+      assertTrue(r.check("100ms"));
+      assertTrue(r.check("60s"));
+      assertFalse(r.check("99ms"));
+      assertFalse(r.check("61s"));
+      try {
+        ParameterType.DurationRange(java.time.Duration.ZERO, java.time.Duration.ofDays(365L * 1000));
+        fail();
+      } catch (ParseException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testRegex() {
+    ParameterType t = ParameterType.Regex("[a-z]+-\\d{2}").getType();
+    String[] succ = {"ab-12", "x-00"};
+    String[] fail = {null, "", "ab-1", "ab-123", "AB-12", " ab-12", "xab-12y"};
+    for (String v : succ) {
+      assertTrue(v, t.check(v));
+    }
+    for (String v : fail) {
+      assertFalse(v, t.check(v));
+    }
+    assertTrue(ParameterType.Regex("[a-z]+", java.util.regex.Pattern.CASE_INSENSITIVE).getType().check("AbC"));
+    assertFalse(ParameterType.Regex("[a-z]+").getType().check("AbC"));
+    try {
+      ParameterType.Regex("[");
+      fail();
+    } catch (java.util.regex.PatternSyntaxException expected) { }
+  }
+
+  public void testRegexCache() {
+    RegexType a = (RegexType) ParameterType.Regex("cache-\\w+").getType();
+    RegexType b = (RegexType) ParameterType.Regex("cache-\\w+").getType();
+    RegexType c = (RegexType) ParameterType.Regex("cache-\\w+", java.util.regex.Pattern.CASE_INSENSITIVE).getType();
+    assertSame(a.getPattern(), b.getPattern());
+    assertNotSame(a.getPattern(), c.getPattern());
+    for (int i = 0; i < RegexType.CACHE_SIZE; i++) {
+      ParameterType.Regex("evict" + i);
+    }
+    assertNotSame(a.getPattern(), RegexType.compile("cache-\\w+", 0));
+  }
+
+  public void testRegexThreads() throws InterruptedException {
+    final ParameterType t = ParameterType.Regex("\\d+").getType();
+    final boolean[] ok = {true, true};
+    Thread[] threads = new Thread[2];
+    for (int n = 0; n < threads.length; n++) {
+      final int idx = n;
+      threads[n] = new Thread(() -> {
+          for (int i = 0; i < 10000; i++) {
+            if (!t.check(Integer.toString(i)) || t.check("x" + i)) {
+              ok[idx] = false;
+            }
+          }
+        });
+      threads[n].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(ok[0]);
+    assertTrue(ok[1]);
+  }
+
+  public void testPrimitive() {
+    assertTrue(ParameterType.Integer.getType() instanceof IntParameterType);
+    assertTrue(ParameterType.IntegerRange(1, 2).getType() instanceof IntParameterType);
+    assertTrue(ParameterType.Long.getType() instanceof LongParameterType);
+    assertTrue(ParameterType.Duration.getType() instanceof LongParameterType);
+    assertTrue(ParameterType.Float.getType() instanceof DoubleParameterType);
+    assertTrue(ParameterType.DoubleRange(1, 2).getType() instanceof DoubleParameterType);
+    assertEquals(-7, ((IntParameterType) ParameterType.Integer.getType()).parseInt("-7"));
+    assertEquals(1L << 20, ((LongParameterType) ParameterType.ByteSize.getType()).parseLong("1M"));
+    assertEquals(2.5, ((DoubleParameterType) ParameterType.Double.getType()).parseDouble("2.5"));
+    assertEquals(Integer.valueOf(42), ParameterType.Integer.getType().get("42"));
+    assertEquals(Float.valueOf(0.1f), ParameterType.Float.getType().get("0.1"));
+    assertEquals(Double.valueOf(0.1), ParameterType.Double.getType().get("0.1"));
+    try {
+      ((IntParameterType) ParameterType.Integer.getType()).parseInt("x");
+      fail();
+    } catch (NumberFormatException expected) { }
+  }
+
+  public void testIntScan() {
+    String[] values = {
+      "0", "-0", "+0", "1", "-1", "2147483647", "-2147483648", "2147483648", "-2147483649", "+", "-", "",
+      "\u0663", "-\u0661\u0662", "\uff11\uff12", "1_0", "01", "+-1", "99999999999", "-99999999999", "1 ", " 1"};
+    for (String v : values) {
+      long res = IntType.scan(v);
+      try {
+        assertEquals(v, Integer.parseInt(v), res);
+      } catch (NumberFormatException e) {
+        assertEquals(v, IntType.INVALID, res);
+      }
+    }
+    java.util.Random r = new java.util.Random(1);
+    for (int i = 0; i < 10000; i++) {
+      String v = Long.toString(r.nextLong() >> r.nextInt(64));
+      long res = IntType.scan(v);
+      try {
+        assertEquals(v, Integer.parseInt(v), res);
+      } catch (NumberFormatException e) {
+        assertEquals(v, IntType.INVALID, res);
+      }
+    }
+  }
+
+  public void testCustomPrimitive() {
+    IntParameterType even = new IntParameterType() {
+        @Override
+        public int parseInt(String s) {
+          return java.lang.Integer.parseInt(s);
+        }
+        @Override
+        public boolean checkInt(int v) {
+          return (v % 2) == 0;
+        }
+      };
+    assertTrue(even.check("4"));
+    assertFalse(even.check("5"));
+    assertFalse(even.check("x"));
+    assertFalse(even.check(null));
+    assertEquals(4, even.get("4"));
+    try {
+      assertEquals(-4, new SubParameter("-4", new SubOption(even)).getAsInt());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testKinds() {
+    Object[][] kinds = {
+      {ParameterType.String, BuiltinType.KIND_STRING, "x", null},
+      {ParameterType.Integer, BuiltinType.KIND_INT, "1", "x"},
+      {ParameterType.Long, BuiltinType.KIND_LONG, "1", "x"},
+      {ParameterType.Duration, BuiltinType.KIND_LONG, "1s", "1"},
+      {ParameterType.Double, BuiltinType.KIND_DOUBLE, "1.5", "x"},
+      {ParameterType.Choice("a"), BuiltinType.KIND_CHOICE, "a", "b"},
+      {ParameterType.Regex("a+"), BuiltinType.KIND_REGEX, "aa", "b"}};
+    for (Object[] k : kinds) {
+      ParameterType t = ((SubOption) k[0]).getType();
+      assertEquals(k[1], ((BuiltinType) t).getKind());
+      assertTrue(BuiltinType.check(t, (String) k[2]));
+      assertFalse(BuiltinType.check(t, (String) k[3]));
+    }
+    ParameterType custom = new ParameterType() {
+        @Override
+        public boolean check(String s) {
+          return "c".equals(s);
+        }
+      };
+    assertTrue(BuiltinType.check(custom, "c"));
+    assertFalse(BuiltinType.check(custom, "d"));
+  }
+
+  private static final class CountingInt implements IntParameterType {
+    int parses;
+
+    @Override
+    public int parseInt(String s) {
+      parses++;
+      return java.lang.Integer.parseInt(s);
+    }
+  }
+
+  public void testIntCombinators() {
+    IntParameterType t = IntParameterType.range(0, 100).and(v -> (v % 2) == 0);
+    assertTrue(t.check("42"));
+    assertFalse(t.check("43"));
+    assertFalse(t.check("102"));
+    assertFalse(t.check("x"));
+    assertFalse(t.check(null));
+    assertEquals(42, t.parseInt("42"));
+    assertEquals(42, t.get("42"));
+    IntParameterType o = IntParameterType.range(0, 9).or(v -> v == 100);
+    assertTrue(o.check("5"));
+    assertTrue(o.check("100"));
+    assertFalse(o.check("50"));
+    IntParameterType n = IntParameterType.range(0, 9).negate();
+    assertTrue(n.check("10"));
+    assertFalse(n.check("5"));
+    assertFalse(n.check("x"));
+    IntParameterType m = IntParameterType.range(0, 9).map(v -> v * 10).and(v -> v >= 50);
+    assertTrue(m.check("5"));
+    assertFalse(m.check("4"));
+    assertFalse(m.check("10"));
+    assertEquals(70, m.parseInt("7"));
+    CountingInt c = new CountingInt();
+    IntParameterType f = c.and(v -> v > 0).and(v -> v < 10).or(v -> v == 42).negate().negate();
+    assertTrue(f.check("5"));
+    assertTrue(f.check("42"));
+    assertFalse(f.check("10"));
+    assertEquals(3, c.parses);
+  }
+
+  public void testLongCombinators() {
+    LongParameterType t = LongParameterType.range(0, 10_000_000_000L).and(v -> (v % 1000) == 0);
+    assertTrue(t.check("5000000000"));
+    assertFalse(t.check("5000000001"));
+    assertFalse(t.check("20000000000"));
+    LongParameterType s = ((LongParameterType) ParameterType.ByteSize.getType()).and(v -> (v % 4096) == 0);
+    assertTrue(s.check("64M"));
+    assertFalse(s.check("1000"));
+    assertTrue(LongParameterType.range(0, 1).or(v -> v < 0).check("-5"));
+    assertTrue(LongParameterType.range(0, 1).negate().check("2"));
+    assertEquals(-3L, LongParameterType.range(0, 9).map(v -> -v).parseLong("3"));
+  }
+
+  public void testDoubleCombinators() {
+    DoubleParameterType t = DoubleParameterType.range(0, 1).and(v -> v != 0.5);
+    assertTrue(t.check("0.25"));
+    assertFalse(t.check("0.5"));
+    assertFalse(t.check("1.5"));
+    assertTrue(DoubleParameterType.range(0, 1).or(v -> v > 10).check("11"));
+    assertTrue(DoubleParameterType.range(0, 1).negate().check("2"));
+    assertEquals(50.0, DoubleParameterType.range(0, 1).map(v -> v * 100).parseDouble("0.5"));
+  }
+
+  public void testStringCombinators() {
+    ParameterType t = ParameterType.anyOf(ParameterType.Regex("[a-z]+").getType(),
+        ParameterType.Choice("").getType());
+    assertTrue(t.check("abc"));
+    assertTrue(t.check(""));
+    assertFalse(t.check("1"));
+    ParameterType a = ParameterType.allOf(ParameterType.Integer.getType(), ParameterType.Regex("\\d{3}").getType());
+    assertTrue(a.check("123"));
+    assertFalse(a.check("12"));
+    assertFalse(a.check("abc"));
+    ParameterType n = ParameterType.not(ParameterType.Integer.getType());
+    assertTrue(n.check("x"));
+    assertFalse(n.check("1"));
+    assertFalse(n.check(null));
+  }
 }
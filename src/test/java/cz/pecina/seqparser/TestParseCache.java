@@ -0,0 +1,175 @@
+/* TestParseCache.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import junit.framework.TestCase;
+
+public class TestParseCache extends TestCase {
+
+  private static Options getOptions() throws ParseException {
+    return Options.builder()
+      .addOption("a", "alpha", 0, 10)
+      .addSubOption(ParameterType.Integer)
+      .addOption("b", "beta")
+      .build();
+  }
+
+  public void testToString() {
+    assertEquals("ParseCache", new ParseCache(new SeqParser(), 1).toString());
+  }
+
+  public void testConstructor() {
+    try {
+      new ParseCache(new SeqParser(), 0);
+      fail();
+    } catch (IllegalArgumentException expected) { }
+  }
+
+  public void testHit() {
+    try {
+      Options o = getOptions();
+      ParseCache c = new ParseCache(new SeqParser(), 10);
+      String[] a = {"-a", "1,2", "-z", "x"};
+      CommandLine l = c.parse(o, a, true);
+      assertEquals(2, l.getParameters().get(0).getNumSubParameters());
+      assertSame(l, c.parse(o, new String[] {"-a", "1,2", "-z", "x"}, true));
+      a[3] = "y";
+      assertEquals("x", l.getRemArgs().get(1));
+      assertNotSame(l, c.parse(o, a, true));
+      assertEquals(1, c.getHits());
+      assertEquals(2, c.getMisses());
+      assertEquals(2, c.getSize());
+      try {
+        l.getParameters().clear();
+        fail();
+      } catch (UnsupportedOperationException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testKey() {
+    try {
+      Options o = getOptions();
+      SeqParser p = new SeqParser();
+      ParseCache c = new ParseCache(p, 10);
+      String[] a = {"-b"};
+      CommandLine l = c.parse(o, a, true);
+      assertNotSame(l, c.parse(o, a, false));
+      assertNotSame(l, c.parse(getOptions(), a, true));
+      p.setSep(';');
+      a = new String[] {"-a", "1;2"};
+      assertEquals(2, c.parse(o, a, true).getParameters().get(0).getNumSubParameters());
+      p.setSep(',');
+      try {
+        c.parse(o, a, true);
+        fail();
+      } catch (ParseException expected) { }
+      assertEquals(0, c.getHits());
+      assertEquals(5, c.getMisses());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testModified() {
+    try {
+      Options o = getOptions();
+      ParseCache c = new ParseCache(new SeqParser(), 10);
+      String[] a = {"-a", "-b"};
+      assertEquals(2, c.parse(o, a, true).getParameters().size());
+      o.addExcludes(o.getOptionShort("a"), o.getOptionShort("b"));
+      try {
+        c.parse(o, a, true);
+        fail();
+      } catch (ParseException expected) { }
+      String[] b = {"-c"};
+      assertEquals(0, c.parse(o, b, true).getParameters().size());
+      o.addOption(new Option("c", "gamma", 0, 0));
+      assertEquals(1, c.parse(o, b, true).getParameters().size());
+      assertEquals(0, c.getHits());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testLimits() {
+    try {
+      Options o = getOptions();
+      SeqParser p = new SeqParser();
+      ParseCache c = new ParseCache(p, 10);
+      String[] a = {"-a", "1,2,3"};
+      CommandLine l = c.parse(o, a, true);
+      p.setLimits(new ParseLimits());
+      assertSame(l, c.parse(o, a, true));
+      p.setLimits(new ParseLimits().setMaxSubParameters(2));
+      try {
+        c.parse(o, a, true);
+        fail();
+      } catch (ParseException expected) { }
+      p.setLimits(null);
+      assertSame(l, c.parse(o, a, true));
+      assertEquals(2, c.getHits());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testEviction() {
+    try {
+      Options o = getOptions();
+      ParseCache c = new ParseCache(new SeqParser(), 2);
+      CommandLine l1 = c.parse(o, new String[] {"-a", "1"}, false);
+      CommandLine l2 = c.parse(o, new String[] {"-a", "2"}, false);
+      assertSame(l1, c.parse(o, new String[] {"-a", "1"}, false));
+      c.parse(o, new String[] {"-a", "3"}, false);
+      assertEquals(2, c.getSize());
+      assertSame(l1, c.parse(o, new String[] {"-a", "1"}, false));
+      assertNotSame(l2, c.parse(o, new String[] {"-a", "2"}, false));
+      assertEquals(2, c.getMaxSize());
+      c.clear();
+      assertEquals(0, c.getSize());
+      assertEquals(0, c.getHits());
+      assertEquals(0, c.getMisses());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testError() {
+    try {
+      Options o = getOptions();
+      ParseCache c = new ParseCache(new SeqParser(), 2);
+      for (int i = 0; i < 2; i++) {
+        try {
+          c.parse(o, new String[] {"-a", "x"}, false);
+          fail();
+        } catch (ParseException expected) { }
+      }
+      assertEquals(0, c.getSize());
+      assertEquals(2, c.getMisses());
+    } catch (Exception e) {
+      fail();
+    }
+  }
+}
@@ -0,0 +1,55 @@
+/* TestParseLimits.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import junit.framework.TestCase;
+
+public class TestParseLimits extends TestCase {
+
+  public void testDefaults() {
+    ParseLimits l = new ParseLimits();
+    assertEquals(ParseLimits.UNLIMITED, l.getMaxArgs());
+    assertEquals(ParseLimits.UNLIMITED, l.getMaxArgLength());
+    assertEquals(ParseLimits.UNLIMITED, l.getMaxSubParameters());
+    assertEquals(ParseLimits.UNLIMITED, l.getMaxTotalSubParameters());
+    assertEquals(ParseLimits.UNLIMITED, l.getMaxKwSubParameters());
+  }
+
+  public void testSetters() {
+    try {
+      ParseLimits l = new ParseLimits().setMaxArgs(1).setMaxArgLength(2).setMaxSubParameters(3)
+        .setMaxTotalSubParameters(4).setMaxKwSubParameters(0);
+      assertEquals(1, l.getMaxArgs());
+      assertEquals(2, l.getMaxArgLength());
+      assertEquals(3, l.getMaxSubParameters());
+      assertEquals(4, l.getMaxTotalSubParameters());
+      assertEquals(0, l.getMaxKwSubParameters());
+    } catch (ParseException e) {
+      fail();
+    }
+    try {
+      new ParseLimits().setMaxArgs(-1);
+      fail();
+    } catch (ParseException expected) { }
+  }
+}
@@ -0,0 +1,258 @@
+/* TestParseServer.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import junit.framework.TestCase;
+
+public class TestParseServer extends TestCase {
+
+  private static Options getOptions() throws ParseException {
+    return Options.builder()
+      .addOption("a", "alpha", 1, 3)
+      .addSubOption(ParameterType.Integer)
+      .addKwSubOption("k", ParameterType.String)
+      .addOption("b", "beta")
+      .build();
+  }
+
+  public void testToString() {
+    try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), false, 0)) {
+      assertEquals("ParseServer", s.toString());
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testParse() {
+    try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), true, 0).start();
+        ParseClient c = new ParseClient(getOptions(), s.getPort(), s.getToken())) {
+      assertEquals("ParseClient", c.toString());
+      assertTrue(s.getPort() > 0);
+      for (int i = 0; i < 3; i++) {
+        CommandLine l = c.parse(new String[] {"-a", "1,2,k=\"ř x\"", "--beta", "-c", "d"});
+        assertEquals(2, l.getParameters().size());
+        Parameter p = l.getParameters().get(0);
+        assertEquals("alpha", p.getOption().getName());
+        assertEquals(2, p.getNumSubParameters());
+        assertEquals(2, p.getSubParameter(1).getAsInt());
+        assertSame(ParameterType.Integer, p.getSubParameter(1).getSubOption());
+        assertEquals("ř x", p.getKwSubParameter("k").getAsString());
+        assertEquals("beta", l.getParameters().get(1).getOption().getName());
+        assertEquals(2, l.getRemArgs().size());
+        assertEquals("d", l.getRemArgs().get(1));
+        try {
+          c.parse(new String[] {"-a", "x"});
+          fail();
+        } catch (ParseException expected) { }
+      }
+      try (ParseClient c2 = new ParseClient(getOptions(), s.getPort(), s.getToken())) {
+        assertTrue(c2.parse(new String[0]).getParameters().isEmpty());
+      }
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testMismatch() {
+    try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), false, 0).start();
+        ParseClient c = new ParseClient(new Options(), s.getPort(), s.getToken())) {
+      c.parse(new String[] {"-b"});
+      fail();
+    } catch (IOException expected) {
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testSettings() {
+    try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), false, 0, "secret")) {
+      assertEquals("secret", s.getToken());
+      try (ParseServer s2 = new ParseServer(new SeqParser(), getOptions(), false, 0)) {
+        assertTrue(s2.getToken().length() > 16);
+      }
+      assertEquals(1000, s.setMaxRequestSize(1000).getMaxRequestSize());
+      try {
+        s.setMaxRequestSize(0);
+        fail();
+      } catch (IllegalArgumentException expected) { }
+      assertEquals(2, s.setMaxConnections(2).getMaxConnections());
+      try {
+        s.setMaxConnections(0);
+        fail();
+      } catch (IllegalArgumentException expected) { }
+      assertEquals(0, s.setTimeout(0).getTimeout());
+      try {
+        s.setTimeout(-1);
+        fail();
+      } catch (IllegalArgumentException expected) { }
+      for (String t : new String[] {"", "a\nb", "a\r", "\u0000a"}) {
+        try {
+          new ParseServer(new SeqParser(), getOptions(), false, 0, t);
+          fail();
+        } catch (IllegalArgumentException expected) { }
+      }
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testToken() {
+    try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), false, 0).start()) {
+      try {
+        new ParseClient(getOptions(), s.getPort(), "wrong");
+        fail();
+      } catch (IOException expected) { }
+      try (ParseClient c = new ParseClient(getOptions(), s.getPort(), s.getToken())) {
+        assertEquals(1, c.parse(new String[] {"-b"}).getParameters().size());
+      }
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  // sends a raw request after authenticating, returning true if the server closed the connection
+  private static boolean isRefused(final ParseServer s, final int... ints) throws IOException {
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), s.getPort());
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+      WireFormat.writeString(out, s.getToken());
+      for (int i : ints) {
+        out.writeInt(i);
+      }
+      out.flush();
+      assertEquals(WireFormat.STATUS_OK, in.readByte());
+      return in.read() < 0;
+    }
+  }
+
+  public void testOversized() {
+    try (ParseServer s = new ParseServer(new SeqParser().setLimits(new ParseLimits().setMaxArgs(2)), getOptions(),
+        false, 0).start()) {
+      s.setMaxRequestSize(1000);
+      assertTrue(isRefused(s, Integer.MAX_VALUE - 8));
+      assertTrue(isRefused(s, 3));
+      assertTrue(isRefused(s, 1, Integer.MAX_VALUE - 8));
+      assertTrue(isRefused(s, 2, 990));
+      assertTrue(isRefused(s, -1));
+      try (ParseClient c = new ParseClient(getOptions(), s.getPort(), s.getToken())) {
+        assertEquals(2, c.parse(new String[] {"-b", "-b"}).getParameters().size());
+      }
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testText() {
+    try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), true, 0).start();
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), s.getPort());
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+      out.write(s.getToken() + "\r\n");
+      out.flush();
+      assertEquals("OK", in.readLine());
+      out.write("-a 1,2,k=\"\u0159\tx\\\\y\" \"--beta\" -c \"d e\"\n-a x\n\n");
+      out.flush();
+      assertEquals("OK 7", in.readLine());
+      assertEquals("P\talpha", in.readLine());
+      assertEquals("S\t1", in.readLine());
+      assertEquals("S\t2", in.readLine());
+      assertEquals("K\tk\t\u0159\\tx\\\\y", in.readLine());
+      assertEquals("P\tbeta", in.readLine());
+      assertEquals("R\t-c", in.readLine());
+      assertEquals("R\td e", in.readLine());
+      assertTrue(in.readLine().startsWith("ERROR Invalid positional parameter value"));
+      assertEquals("OK 0", in.readLine());
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+    try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), true, 0).start();
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), s.getPort());
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+      out.write("wrong\n-b\n");
+      out.flush();
+      assertEquals("ERROR Authentication failed", in.readLine());
+      assertNull(in.readLine());
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testConnections() {
+    try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), false, 0).setMaxConnections(1).start();
+        ParseClient c = new ParseClient(getOptions(), s.getPort(), s.getToken())) {
+      try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), s.getPort())) {
+        assertTrue(socket.getInputStream().read() < 0);
+      }
+      assertEquals(1, c.parse(new String[] {"-b"}).getParameters().size());
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+
+  public void testTimeout() {
+    try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), false, 0).setTimeout(100).start()) {
+      try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), s.getPort())) {
+        socket.setSoTimeout(10_000);
+        assertTrue(socket.getInputStream().read() < 0);
+      }
+      try (ParseClient c = new ParseClient(getOptions(), s.getPort(), s.getToken())) {
+        assertEquals(1, c.parse(new String[] {"-b"}).getParameters().size());
+        Thread.sleep(300);
+        try {
+          c.parse(new String[] {"-b"});
+          fail();
+        } catch (IOException expected) { }
+      }
+    } catch (IOException | ParseException | InterruptedException e) {
+      fail();
+    }
+  }
+
+  public void testClose() {
+    try {
+      ParseClient c;
+      try (ParseServer s = new ParseServer(new SeqParser(), getOptions(), false, 0).start()) {
+        c = new ParseClient(getOptions(), s.getPort(), s.getToken());
+        c.parse(new String[] {"-b"});
+      }
+      try {
+        c.parse(new String[] {"-b"});
+        fail();
+      } catch (IOException expected) { }
+      c.close();
+    } catch (IOException | ParseException e) {
+      fail();
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/* TestPushParser.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import junit.framework.TestCase;
+
+public class TestPushParser extends TestCase {
+
+  private static Options getOptions() throws ParseException {
+    return Options.builder()
+      .addOption("a", "alpha", 1)
+      .addSubOption(ParameterType.Integer)
+      .addOption("b", "beta")
+      .build();
+  }
+
+  public void testToString() {
+    try {
+      assertEquals("PushParser", new SeqParser().pushParser(getOptions(), false).toString());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testFeed() {
+    try {
+      PushParser p = new SeqParser().pushParser(getOptions(), true);
+      assertFalse(p.feed("-a").feed("1").feed("--beta").isStopped());
+      assertTrue(p.feed("-z").isStopped());
+      p.feed("-a");
+      CommandLine c = p.finish();
+      assertEquals(2, c.getParameters().size());
+      assertEquals(1, c.getParameters().get(0).getSubParameter(0).getAsInt());
+      assertEquals(2, c.getRemArgs().size());
+      assertEquals("-z", c.getRemArgs().get(0));
+      assertEquals("-a", c.getRemArgs().get(1));
+      try {
+        p.feed("-b");
+        fail();
+      } catch (IllegalStateException expected) { }
+      try {
+        p.finish();
+        fail();
+      } catch (IllegalStateException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testErrors() {
+    try {
+      PushParser p = new SeqParser().pushParser(getOptions(), false);
+      p.feed("-a");
+      try {
+        p.feed("x");
+        fail();
+      } catch (ParseException expected) { }
+      try {
+        p.feed("-b");
+        fail();
+      } catch (IllegalStateException expected) { }
+      p = new SeqParser().pushParser(getOptions(), false);
+      p.feed("-a");
+      try {
+        p.finish();
+        fail();
+      } catch (ParseException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+}
@@ -25,9 +25,11 @@ package cz.pecina.seqparser;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import junit.framework.TestCase;
@@ -175,6 +177,66 @@ public class TestSeqParser extends TestCase {
     }
   }
 
+  public void testTokenizer() {
+
+    SeqParser.Tokenizer p = new SeqParser.Tokenizer("");
+    assertFalse(p.hasNext());
+    try {
+      p.next();
+      fail();
+    } catch (NoSuchElementException expected) { }
+
+    String[][] pat = {
+      {" "},
+      {"a", "a"},
+      {" a ", "a"},
+      {"a b", "a", "b"},
+      {"a \t\n b", "a", "b"},
+      {"-a x,y --b", "-a", "x,y", "--b"},
+      {"\"a b\"", "\"a b\""},
+      {"'a b' c", "'a b'", "c"},
+      {"\"a 'b\" c'", "\"a 'b\"", "c'"},
+      {"'a \"b' c\"", "'a \"b'", "c\""},
+      {"a\\ b", "a\\ b"},
+      {"\"a\\\" b\" c", "\"a\\\" b\"", "c"},
+      {"k=\"v w\",x", "k=\"v w\",x"},
+      {"\"a", "\"a"},
+      {"\"a b", "\"a b"},
+      {"'' \"\"", "''", "\"\""}
+    };
+    for (String[] s : pat) {
+      int i = 0;
+      for (String t : new SeqParser.Tokenizer(s[0])) {
+        assertEquals(s[0], s[++i], t);
+      }
+      assertEquals(s[0], s.length - 1, i);
+    }
+
+    String[][] unq = {
+      {"", ""},
+      {"abc", "abc"},
+      {"\"a b\"", "a b"},
+      {"'a b'", "a b"},
+      {"\"--x\"", "--x"},
+      {"-'-x'", "--x"},
+      {"\"a 'b\"", "a 'b"},
+      {"'a \"b'", "a \"b"},
+      {"a\\ b", "a b"},
+      {"\"a\\\" b\"", "a\" b"},
+      {"a\\\\b", "a\\b"},
+      {"\"a\\\\\" b\"", "a\\\" b"},
+      {"a\\\\\\'b'", "a\\'b"},
+      {"a\\", "a"},
+      {"'' \"\"", " "},
+      {"\"a", "a"}
+    };
+    for (String[] s : unq) {
+      assertEquals(s[0], s[1], SeqParser.Tokenizer.unquote(s[0]));
+    }
+    String s = "plain";
+    assertSame(s, SeqParser.Tokenizer.unquote(s));
+  }
+
   public void testReKw() {
     String[][] pat = {
       {"", null, "", ""},
@@ -207,6 +269,102 @@ public class TestSeqParser extends TestCase {
       for (int i = 1; i <= 3; i++) {
         assertEquals(String.format("%s, #%d", s[0], i), s[i], m.toMatchResult().group(i));
       }
+      SeqParser.KwScanner k = new SeqParser.KwScanner();
+      assertTrue(s[0], k.scan(s[0]));
+      assertEquals(s[0], s[1], k.getKey());
+      assertEquals(s[0], s[2], k.getQuote());
+      assertEquals(s[0], s[3], k.getRawValue());
+    }
+  }
+
+  public void testScanners() {
+    final String alphabet = "aZ_0-='\"\\\n\r\u0085\u2028\u007f ";
+    final Random random = new Random(1);
+    final SeqParser.KwScanner k = new SeqParser.KwScanner();
+    for (int n = 0; n < 200000; n++) {
+      final char[] chars = new char[random.nextInt(9)];
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+      }
+      final String str = new String(chars);
+      final String msg = str.replace("\n", "\\n").replace("\r", "\\r");
+      final Matcher m = SeqParser.RE_KW.matcher(str);
+      final boolean found = m.find();
+      assertEquals(msg, found, k.scan(str));
+      if (found) {
+        assertEquals(msg, m.group(1), k.getKey());
+        assertEquals(msg, m.group(2), k.getQuote());
+        assertEquals(msg, m.group(3), k.getRawValue());
+        assertEquals(msg, m.group(3).replace("\\\\", "\u007f").replace("\\", "").replace("\u007f", "\\"),
+            k.getValue());
+      }
+      assertEquals(msg, SeqParser.RE_OPT.matcher(str).matches(), SeqParser.isOption(str));
+    }
+  }
+
+  // counts the values checked and their total length
+  private static final class CountingType implements ParameterType {
+    long checks;
+    long chars;
+
+    @Override
+    public boolean check(String s) {
+      checks++;
+      chars += s.length();
+      return true;
+    }
+
+    @Override
+    public Object get(String s) {
+      return s;
+    }
+  }
+
+  // parses a value and returns the number of values checked, their total length and the characters examined
+  private static long[] countParse(final SeqParser p, final String value) throws ParseException {
+    final CountingType t = new CountingType();
+    final Options o = Options.builder()
+      .addOption("a", "alpha", 0, ParseLimits.UNLIMITED)
+      .addSubOption(new SubOption(t))
+      .addKwSubOption("k", new SubOption(t))
+      .build();
+    final long visits = SeqParser.visits;
+    try {
+      p.parse(o, new String[] {"-a", value}, false);
+    } catch (ParseException expected) { }
+    return new long[] {t.checks, t.chars, SeqParser.visits - visits};
+  }
+
+  // repeats a string
+  private static String repeat(final String str, final int count) {
+    final StringBuilder res = new StringBuilder(str.length() * count);
+    for (int i = 0; i < count; i++) {
+      res.append(str);
+    }
+    return res.toString();
+  }
+
+  public void testLinearWork() {
+    assertTrue("set cz.pecina.seqparser.countVisits", SeqParser.COUNT_VISITS);
+    try {
+      SeqParser p = new SeqParser();
+      final int small = 1 << 10;
+      final int factor = 16;
+      for (String[] s : new String[][] {
+          {"\"", "'"}, {"\\", ""}, {"=", ""}, {"a-", "="}, {"k=\"", "\"'"}, {"'\\", "\n"}, {"a\n", ""}, {",", ""},
+          {"-a", ""}, {"k=\\", "'"}}) {
+        final long[] smallCount = countParse(p, repeat(s[0], small) + s[1]);
+        final long[] largeCount = countParse(p, repeat(s[0], small * factor) + s[1]);
+        // every value is checked once and every character is examined a bounded number of times, so the work
+        // grows with the input, not with its square
+        assertTrue(s[0], smallCount[2] > 0);
+        for (int i = 0; i < smallCount.length; i++) {
+          assertTrue(String.format("\"%s\": %d vs %d", s[0], smallCount[i], largeCount[i]),
+              largeCount[i] <= (smallCount[i] + 1) * factor);
+        }
+      }
+    } catch (ParseException e) {
+      fail();
     }
   }
 
@@ -222,6 +380,381 @@ public class TestSeqParser extends TestCase {
     return null;
   }
 
+  private static void assertSameResult(final String m, final CommandLine expected, final CommandLine actual) {
+    assertEquals(m, expected.getParameters().size(), actual.getParameters().size());
+    for (int numPar = 0; numPar < expected.getParameters().size(); numPar++) {
+      Parameter e = expected.getParameters().get(numPar);
+      Parameter a = actual.getParameters().get(numPar);
+      assertSame(m, e.getOption(), a.getOption());
+      assertEquals(m, e.getNumSubParameters(), a.getNumSubParameters());
+      for (int i = 0; i < e.getNumSubParameters(); i++) {
+        assertEquals(m, e.getSubParameter(i).getAsString(), a.getSubParameter(i).getAsString());
+        assertSame(m, e.getSubParameter(i).getSubOption(), a.getSubParameter(i).getSubOption());
+      }
+      assertEquals(m, e.getKwSubParameters().keySet(), a.getKwSubParameters().keySet());
+      for (String key : e.getKwSubParameters().keySet()) {
+        assertEquals(m, e.getKwSubParameter(key).getAsString(), a.getKwSubParameter(key).getAsString());
+        assertSame(m, e.getKwSubParameter(key).getSubOption(), a.getKwSubParameter(key).getSubOption());
+      }
+    }
+    assertEquals(m, expected.getRemArgs(), actual.getRemArgs());
+  }
+
+  public void testFailFastArity() {
+    try {
+      final int[] checks = {0};
+      SubOption counting = new SubOption(str -> {
+          checks[0]++;
+          return true;
+        });
+      Options o = Options.builder()
+        .addOption("a", "alpha", 1, 2)
+        .addSubOption(counting)
+        .addOption("b", "beta")
+        .build();
+      StringBuilder value = new StringBuilder("x");
+      for (int i = 0; i < 100000; i++) {
+        value.append(",x");
+      }
+      SeqParser p = new SeqParser();
+      try {
+        p.parse(o, new String[] {"-a", value.toString()}, false);
+        fail();
+      } catch (ParseException e) {
+        assertEquals("Invalid number of positional parameters supplied", e.getMessage());
+      }
+      assertEquals(2, checks[0]);
+      PushParser pp = p.pushParser(o, false).feed("-a");
+      try {
+        pp.feed("-b");
+        fail();
+      } catch (ParseException e) {
+        assertEquals("Invalid number of positional parameters supplied", e.getMessage());
+      }
+      pp = p.pushParser(o, false).feed("-a").feed("x,y").feed("-a");
+      try {
+        pp.finish();
+        fail();
+      } catch (ParseException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  private static void assertRejected(final SeqParser p, final Options o, final String[] args, final String msg) {
+    try {
+      p.parse(o, args, true);
+      fail();
+    } catch (ParseException e) {
+      assertEquals(msg, e.getMessage());
+    }
+    PushParser pp = p.pushParser(o, true);
+    try {
+      for (String arg : args) {
+        pp.feed(arg);
+      }
+      pp.finish();
+      fail();
+    } catch (ParseException e) {
+      assertEquals(msg, e.getMessage());
+    }
+  }
+
+  public void testLimits() {
+    try {
+      Options o = Options.builder()
+        .addOption("a", "alpha", 0, ParseLimits.UNLIMITED)
+        .addSubOption(ParameterType.String)
+        .addKwSubOption("k", ParameterType.String)
+        .addOption("b", "beta")
+        .build();
+      SeqParser p = new SeqParser().setLimits(new ParseLimits().setMaxArgs(4).setMaxArgLength(7)
+          .setMaxSubParameters(2).setMaxTotalSubParameters(3).setMaxKwSubParameters(1));
+      p.parse(o, new String[] {"-a", "x,y", "-a", "k=v"}, true);
+      p.parse(o, new String[] {"-b", "-z", "r", "s"}, true);
+      assertRejected(p, o, new String[] {"-b", "-b", "-b", "-b", "-b"}, "Too many arguments");
+      assertRejected(p, o, new String[] {"-b", "-z", "r", "s", "t"}, "Too many arguments");
+      assertRejected(p, o, new String[] {"-a", "xxxxxxxx"}, "Argument too long");
+      assertRejected(p, o, new String[] {"-z", "xxxxxxxx"}, "Argument too long");
+      assertRejected(p, o, new String[] {"-a", "x,y,z"}, "Too many sub-parameters for this option");
+      assertRejected(p, o, new String[] {"-a", "x,y", "-a", "w,v"}, "Too many sub-parameters");
+      assertRejected(p, o, new String[] {"-a", "k=v,k=w"}, "Too many keyword parameters for this option");
+      StringBuilder value = new StringBuilder("x");
+      for (int i = 0; i < 100000; i++) {
+        value.append(",x");
+      }
+      p.getLimits().setMaxArgLength(ParseLimits.UNLIMITED);
+      assertRejected(p, o, new String[] {"-a", value.toString()}, "Too many sub-parameters for this option");
+      assertNull(new SeqParser().getLimits());
+      assertEquals(1, new SeqParser().parse(o, new String[] {"-a", value.toString()}, true).getParameters().size());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testValidate() {
+    try {
+      Options o = Options.builder()
+        .addOption("a", "alpha", 1, 3)
+        .addSubOption(ParameterType.String)
+        .addSubOption(ParameterType.Integer)
+        .addKwSubOption("k", ParameterType.Choice("x", "y"))
+        .build();
+      SeqParser p = new SeqParser();
+      p.validate(o, new String[] {"-a", "'a\\,b',1,2,k=\"x\"", "-z", "r"}, true);
+      String[][] bad = {
+        {"-a", "s,t"},
+        {"-a", "s,k=z"},
+        {"-a", "s,1,2,3"},
+        {"-a"},
+        {"-a", "s", "t"}
+      };
+      for (String[] args : bad) {
+        try {
+          p.parse(o, args, false);
+          fail();
+        } catch (ParseException e) {
+          try {
+            p.validate(o, args, false);
+            fail();
+          } catch (ParseException v) {
+            assertEquals(e.getMessage(), v.getMessage());
+          }
+        }
+      }
+      p.setLimits(new ParseLimits().setMaxArgs(1));
+      try {
+        p.validate(o, new String[] {"-a", "s"}, false);
+        fail();
+      } catch (ParseException e) {
+        assertEquals("Too many arguments", e.getMessage());
+      }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testCollectErrors() {
+    try {
+      Options o = Options.builder()
+        .addOption("a", "alpha", 1, 2)
+        .addSubOption(ParameterType.Integer)
+        .addKwSubOption("k", ParameterType.Integer)
+        .addOption("b", "beta")
+        .addExcludes("--alpha", "--beta")
+        .build();
+      SeqParser p = new SeqParser();
+      String[] args = {"-a", "1,x,k=y,m=1", "-z", "v", "w", "-a", "1,2,3,4", "-a", "-b"};
+      List<ParseError> errors = p.collectErrors(o, args, false, 100);
+      String[][] table = {
+        {"Invalid positional parameter value: \"x\"", "1", "2"},
+        {"Invalid keyword parameter value: \"y\"", "1", "4"},
+        {"Keyword parameter \"m\" not allowed for this option", "1", "8"},
+        {"Invalid option: -z", "2", "0"},
+        {"Invalid option: w", "4", "0"},
+        {"Invalid number of positional parameters supplied", "6", "4"},
+        {"Invalid number of positional parameters supplied", "7", "0"},
+        {"Option \"alpha\" excludes option \"beta\"", "-1", "0"}
+      };
+      assertEquals(table.length, errors.size());
+      for (int i = 0; i < table.length; i++) {
+        assertEquals(table[i][0], errors.get(i).getMessage());
+        assertEquals(table[i][0], Integer.parseInt(table[i][1]), errors.get(i).getArgIndex());
+        assertEquals(table[i][0], Integer.parseInt(table[i][2]), errors.get(i).getOffset());
+      }
+      errors = p.collectErrors(o, args, false, 2);
+      assertEquals(2, errors.size());
+      assertEquals(4, errors.get(1).getOffset());
+      assertTrue(p.collectErrors(o, new String[] {"-a", "1,k=2", "-z"}, true, 1).isEmpty());
+      p.setLimits(new ParseLimits().setMaxArgs(3));
+      errors = p.collectErrors(o, args, false, 100);
+      assertEquals(5, errors.size());
+      assertEquals("Too many arguments", errors.get(4).getMessage());
+      assertEquals(3, errors.get(4).getArgIndex());
+      try {
+        p.collectErrors(o, args, false, 0);
+        fail();
+      } catch (IllegalArgumentException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testConstraints() {
+    try {
+      Options o = Options.builder()
+        .addOption("a", "alpha")
+        .addOption("b", "beta")
+        .addOption("c", "gamma")
+        .addOption("o", "out", 1)
+        .addSubOption(ParameterType.String)
+        .addOption(null, "stdout")
+        .addRequires("-a", "-b")
+        .addExcludes("--beta", "--gamma")
+        .addGroup(1, 1, "--out", "--stdout")
+        .build();
+      SeqParser p = new SeqParser();
+      String[][] succ = {{"--stdout"}, {"-a", "-b", "-o", "f"}, {"-c", "--stdout", "--", "-a"}, {"-b", "-b", "--stdout"}};
+      String[][] fail = {{}, {"-a", "--stdout"}, {"-b", "-c", "--stdout"}, {"-o", "f", "--stdout"}, {"-a", "-b"}};
+      for (String[] args : succ) {
+        p.parse(o, args, false);
+        PushParser pp = p.pushParser(o, false);
+        for (String arg : args) {
+          pp.feed(arg);
+        }
+        pp.finish();
+      }
+      for (String[] args : fail) {
+        try {
+          p.parse(o, args, false);
+          fail();
+        } catch (ParseException expected) { }
+        try {
+          p.parseCompact(o, args, false);
+          fail();
+        } catch (ParseException expected) { }
+      }
+      try {
+        p.parse(o, new String[] {"-a", "--stdout"}, false);
+        fail();
+      } catch (ParseException e) {
+        assertEquals("Option \"alpha\" requires option \"beta\"", e.getMessage());
+      }
+      try {
+        p.parse(o, new String[] {"-c", "-b", "--stdout"}, false);
+        fail();
+      } catch (ParseException e) {
+        assertEquals("Option \"beta\" excludes option \"gamma\"", e.getMessage());
+      }
+      try {
+        p.parse(o, new String[0], false);
+        fail();
+      } catch (ParseException e) {
+        assertEquals("Between 1 and 1 of the options \"out\", \"stdout\" must be given", e.getMessage());
+      }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testConstraintsManyOptions() {
+    try {
+      Options o = new Options();
+      for (int i = 0; i < 130; i++) {
+        o.addOption(null, "o" + i);
+      }
+      o.addRequires(o.getOptionLong("o1"), o.getOptionLong("o129"));
+      o.addGroup(0, 2, o.getOptionLong("o63"), o.getOptionLong("o64"), o.getOptionLong("o127"));
+      SeqParser p = new SeqParser();
+      p.parse(o, new String[] {"--o1", "--o129", "--o63", "--o64"}, false);
+      try {
+        p.parse(o, new String[] {"--o1"}, false);
+        fail();
+      } catch (ParseException expected) { }
+      try {
+        p.parse(o, new String[] {"--o63", "--o64", "--o127"}, false);
+        fail();
+      } catch (ParseException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testInternPool() {
+    try {
+      Options o = Options.builder()
+        .addOption("a", "alpha", 0, 5)
+        .addSubOption(ParameterType.String)
+        .addKwSubOption("mode", ParameterType.String)
+        .build();
+      SeqParser p = new SeqParser();
+      assertNull(p.getInternPool());
+      String[] args = {"-a", "x,mode=fast"};
+      CommandLine c1 = p.parse(o, args, false);
+      CommandLine c2 = p.parse(o, args, false);
+      assertNotSame(c1.getParameters().get(0).getSubParameter(0).getAsString(),
+          c2.getParameters().get(0).getSubParameter(0).getAsString());
+      InternPool pool = new InternPool(64);
+      assertSame(p, p.setInternPool(pool));
+      assertSame(pool, p.getInternPool());
+      c1 = p.parse(o, args, false);
+      c2 = p.pushParser(o, false).feed("-a").feed("x,mode=fast").finish();
+      Parameter p1 = c1.getParameters().get(0);
+      Parameter p2 = c2.getParameters().get(0);
+      assertSame(p1.getSubParameter(0).getAsString(), p2.getSubParameter(0).getAsString());
+      assertSame(p1.getKwSubParameter("mode").getAsString(), p2.getKwSubParameter("mode").getAsString());
+      assertSame(p1.getKwSubParameters().keySet().iterator().next(),
+          p2.getKwSubParameters().keySet().iterator().next());
+      assertEquals(3, pool.getHits());
+      assertEquals(3, pool.getMisses());
+      assertTrue(pool.getSavedBytes() > 0);
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testParseString() {
+    try {
+      Options o = Options.builder()
+        .addOption("t", "text", 0, 5)
+        .addSubOption(ParameterType.String)
+        .addKwSubOption("k", ParameterType.String)
+        .build();
+      SeqParser p = new SeqParser();
+      CommandLine c = p.parse(o, "  -t \"a, b\",'c d',k=\"e f\"  --text x\\ y -- r  s ", false);
+      assertEquals(2, c.getParameters().size());
+      Parameter par = c.getParameters().get(0);
+      assertEquals(2, par.getNumSubParameters());
+      assertEquals("a, b", par.getSubParameter(0).getAsString());
+      assertEquals("c d", par.getSubParameter(1).getAsString());
+      assertEquals("e f", par.getKwSubParameter("k").getAsString());
+      assertEquals("x y", c.getParameters().get(1).getSubParameter(0).getAsString());
+      assertEquals(2, c.getRemArgs().size());
+      assertEquals("s", c.getRemArgs().get(1));
+      c = p.parse(o, "\"--text\" \"a b\" '-t' 'c' -- \"a b\" 'c\"d' e\\ f \"-t\"", false);
+      assertEquals(2, c.getParameters().size());
+      assertEquals("a b", c.getParameters().get(0).getSubParameter(0).getAsString());
+      assertEquals("c", c.getParameters().get(1).getSubParameter(0).getAsString());
+      assertEquals(Arrays.asList("a b", "c\"d", "e f", "-t"), c.getRemArgs());
+      c = p.parse(o, "-t x \"-z\" 'y z'", true);
+      assertEquals(Arrays.asList("-z", "y z"), c.getRemArgs());
+      try {
+        p.parse(o, "-t x \"-z\"", false);
+        fail();
+      } catch (ParseException e) {
+        assertEquals("Invalid option: -z", e.getMessage());
+      }
+      assertTrue(p.parse(o, "", false).getParameters().isEmpty());
+      try {
+        p.parse(o, "-t a b", false);
+        fail();
+      } catch (ParseException expected) { }
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testRemArgs() {
+    try {
+      Options o = new Options();
+      o.addOption("a", null);
+      String[] args = {"-a", "--", "-a", "b"};
+      List<String> r = new SeqParser().parse(o, args, false).getRemArgs();
+      assertEquals(2, r.size());
+      assertSame(args[2], r.get(0));
+      assertSame(args[3], r.get(1));
+      args = new String[] {"-a", "-b", "c"};
+      r = new SeqParser().parse(o, args, true).getRemArgs();
+      assertEquals(2, r.size());
+      assertSame(args[1], r.get(0));
+      r = new SeqParser().parseCompact(o, args, true).getRemArgs();
+      assertEquals(2, r.size());
+      assertSame(args[2], r.get(1));
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
   public void testParse() {
     try {
       for (Object oTc : new JSONObject(new String(Files.readAllBytes(Paths.get(getClass().getResource("TestParse1.json")
@@ -269,10 +802,41 @@ public class TestSeqParser extends TestCase {
           if (exception) {
             fail(m + ": exception expected, but not thrown");
           }
+          assertTrue(m, parser.collectErrors(options, args, stopOnNonOption, 10).isEmpty());
+          parser.validate(options, args, stopOnNonOption);
         } catch (ParseException e) {
           if (!exception) {
             fail(m + ": exception: " + e.getMessage());
           }
+          List<ParseError> errors = parser.collectErrors(options, args, stopOnNonOption, 1);
+          assertEquals(m, 1, errors.size());
+          assertEquals(m, e.getMessage(), errors.get(0).getMessage());
+          try {
+            parser.validate(options, args, stopOnNonOption);
+            fail(m + ": exception expected in validation, but not thrown");
+          } catch (ParseException v) {
+            assertEquals(m, e.getMessage(), v.getMessage());
+          }
+          try {
+            parser.parseCompact(options, args, stopOnNonOption);
+            fail(m + ": exception expected in compact mode, but not thrown");
+          } catch (ParseException expected) { }
+          try {
+            PushParser pushParser = parser.pushParser(options, stopOnNonOption);
+            for (String arg : args) {
+              pushParser.feed(arg);
+            }
+            pushParser.finish();
+            fail(m + ": exception expected in push mode, but not thrown");
+          } catch (ParseException expected) { }
+          try {
+            parser.parse(options, lArgs, stopOnNonOption);
+            fail(m + ": exception expected in iterable mode, but not thrown");
+          } catch (ParseException expected) { }
+          try {
+            parser.parse(options, lArgs.stream(), stopOnNonOption);
+            fail(m + ": exception expected in stream mode, but not thrown");
+          } catch (ParseException expected) { }
           continue;
         }
         List<Parameter> parameters = line.getParameters();
@@ -306,6 +870,16 @@ public class TestSeqParser extends TestCase {
         for (int i = 0; i < remArgs.size(); i++) {
           assertEquals(m, jRemArgs.getString(i), remArgs.get(i));
         }
+        assertSameResult(m, line, parser.parseCompact(options, args, stopOnNonOption).toCommandLine());
+        assertSameResult(m, line, CommandLineCodec.decode(options, CommandLineCodec.encode(options, line)));
+        PushParser pushParser = parser.pushParser(options, stopOnNonOption);
+        for (String arg : args) {
+          pushParser.feed(arg);
+        }
+        assertSameResult(m, line, pushParser.finish());
+        assertSameResult(m, line, parser.parse(options, lArgs, stopOnNonOption));
+        assertSameResult(m, line, parser.parse(options, lArgs.iterator(), stopOnNonOption));
+        assertSameResult(m, line, parser.parse(options, lArgs.stream(), stopOnNonOption));
       }
     } catch (Exception e) {
       fail();
@@ -84,6 +84,23 @@ public class TestSubParameter extends TestCase {
     }
   }
 
+  public void testGetAsLong() {
+    try {
+      assertEquals(-5_000_000_000L, new SubParameter("-5000000000", ParameterType.Long).getAsLong());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
+  public void testGetAsLongUnit() {
+    try {
+      assertEquals(64L << 20, new SubParameter("64M", ParameterType.ByteSize).getAsLong());
+      assertEquals(500_000_000L, new SubParameter("500ms", ParameterType.Duration).getAsLong());
+    } catch (ParseException e) {
+      fail();
+    }
+  }
+
   public void testGetAsFloat() {
     try {
       assertEquals(4.5f, new SubParameter("4.5", ParameterType.Float).getAsFloat());
@@ -0,0 +1,107 @@
+/* TypeDispatchBenchmark.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares checking the values of a mixed-type specification through the kind switch of {@link BuiltinType}
+ * with calling the check of the same types directly through the interface, and measures parsing such
+ * a specification.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TypeDispatchBenchmark {
+
+  private static final String[] ARGS = {
+    "--name", "job", "--count", "12", "--limit", "5000000000", "--ratio", "0.75", "--mode", "FAST",
+    "--size", "64M", "--timeout", "500ms", "--id", "ab-12", "--level", "3", "--scale", "1.5"
+  };
+
+  private enum Mode { FAST, SLOW }
+
+  private ParameterType[] types;
+  private String[] values;
+  private Options options;
+  private SeqParser parser;
+
+  @Setup
+  public void setUp() throws ParseException {
+    final SubOption[] subOptions = {
+      ParameterType.String, ParameterType.Integer, ParameterType.Long, ParameterType.Double,
+      ParameterType.Enum(Mode.class), ParameterType.ByteSize, ParameterType.Duration, ParameterType.Regex("[a-z]+-\\d+"),
+      ParameterType.IntegerRange(0, 9), ParameterType.FloatRange(0, 2)
+    };
+    final Options.Builder builder = Options.builder();
+    types = new ParameterType[subOptions.length];
+    values = new String[subOptions.length];
+    for (int i = 0; i < subOptions.length; i++) {
+      types[i] = subOptions[i].getType();
+      values[i] = ARGS[(2 * i) + 1];
+      builder.addOption(null, ARGS[2 * i].substring(2), 1).addSubOption(subOptions[i]);
+    }
+    options = builder.build();
+    parser = new SeqParser();
+  }
+
+  @Benchmark
+  public int switchDispatch() {
+    int res = 0;
+    for (int i = 0; i < types.length; i++) {
+      if (BuiltinType.check(types[i], values[i])) {
+        res++;
+      }
+    }
+    return res;
+  }
+
+  @Benchmark
+  public int directDispatch() {
+    int res = 0;
+    for (int i = 0; i < types.length; i++) {
+      if (types[i].check(values[i])) {
+        res++;
+      }
+    }
+    return res;
+  }
+
+  @Benchmark
+  public CommandLine parse() throws ParseException {
+    return parser.parse(options, ARGS, false);
+  }
+}
@@ -0,0 +1,87 @@
+/* ValidateBenchmark.java
+ *
+ * Copyright (C) 2019, Tomas Pecina <tomas@pecina.cz>
+ *
+ * This file is part of cz.pecina.seqparser, a sequential command-line parser.
+ *
+ * This application is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This application is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * The source code is available from <https://github.com/tompecina/seqparser>.
+ */
+
+package cz.pecina.seqparser;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares validating an argument vector by {@link SeqParser#validate(Options, String[], boolean)} with parsing
+ * it into a command line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidateBenchmark {
+
+  private static final String[] ARGS = {
+    "--input", "data/in.csv,data/more.csv,'data/with\\,comma.csv'", "--output", "out/result.csv",
+    "--columns", "name,address,city,zip,phone,mail", "--threads", "8", "--filter", "key=city,value=Praha",
+    "--verbose", "-z", "rest"
+  };
+
+  private Options options;
+  private SeqParser parser;
+
+  @Setup
+  public void setUp() throws ParseException {
+    options = Options.builder()
+      .addOption("i", "input", 1, ParseLimits.UNLIMITED)
+      .addSubOption(ParameterType.String)
+      .addOption("o", "output", 1)
+      .addSubOption(ParameterType.String)
+      .addOption("c", "columns", 1, ParseLimits.UNLIMITED)
+      .addSubOption(ParameterType.String)
+      .addOption("t", "threads", 1)
+      .addSubOption(ParameterType.IntegerRange(1, 64))
+      .addOption("f", "filter")
+      .addKwSubOption("key", ParameterType.String)
+      .addKwSubOption("value", ParameterType.String)
+      .addOption("v", "verbose")
+      .build();
+    parser = new SeqParser();
+  }
+
+  @Benchmark
+  public CommandLine parse() throws ParseException {
+    return parser.parse(options, ARGS, true);
+  }
+
+  @Benchmark
+  public boolean validate() throws ParseException {
+    parser.validate(options, ARGS, true);
+    return true;
+  }
+}